@@ -0,0 +1,62 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.*;
+import java.util.concurrent.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class AsyncSmsServiceBenchmark
+{
+  private static final String NUMBER = "+33615229808";
+  private static final String REGION = "FR";
+  private static final String MESSAGE = "Salut !";
+
+  @Param("1")
+  private int latencyMillis;
+
+  @Param("10000")
+  private int sends;
+
+  @Param("1000")
+  private int maxInFlight;
+
+  private SmsService smsService;
+  private Notification notification;
+
+  @Setup
+  public void setUp()
+  {
+    Logging.silence();
+    smsService = new SmsService(new FakeSmsGateway(Duration.ofMillis(latencyMillis)), maxInFlight);
+    notification = new Notification(smsService);
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    smsService.close();
+  }
+
+  @Benchmark
+  public void blocking()
+  {
+    for (int i = 0; i < sends; i++)
+      notification.sendNotification(NUMBER, REGION, MESSAGE);
+  }
+
+  @Benchmark
+  public void async()
+  {
+    CompletableFuture<?>[] deliveries = new CompletableFuture<?>[sends];
+    for (int i = 0; i < sends; i++)
+      deliveries[i] = notification.sendNotificationAsync(NUMBER, REGION, MESSAGE);
+    CompletableFuture.allOf(deliveries).join();
+  }
+}
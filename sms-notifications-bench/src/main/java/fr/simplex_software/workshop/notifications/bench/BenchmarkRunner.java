@@ -0,0 +1,17 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import org.openjdk.jmh.profile.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+public class BenchmarkRunner
+{
+  public static void main(String... args) throws Exception
+  {
+    Options options = new OptionsBuilder()
+      .parent(new CommandLineOptions(args))
+      .addProfiler(GCProfiler.class)
+      .build();
+    new Runner(options).run();
+  }
+}
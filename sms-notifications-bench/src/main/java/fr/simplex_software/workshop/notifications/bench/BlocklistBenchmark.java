@@ -0,0 +1,101 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class BlocklistBenchmark
+{
+  private static final long FIRST_NUMBER = 33_600_000_000L;
+  private static final int STRIDE = 7;
+  private static final int KEYS = 1_024;
+
+  @State(Scope.Benchmark)
+  public static class Keys
+  {
+    @Param({"1000000", "10000000"})
+    int size;
+
+    final long[] numbers = new long[KEYS];
+    final String[] strings = new String[KEYS];
+
+    @Setup
+    public void setUp()
+    {
+      Random random = new Random(17);
+      for (int i = 0; i < KEYS; i++)
+      {
+        long number = FIRST_NUMBER + (long) random.nextInt(size) * STRIDE + (i % 2 == 0 ? 0 : 3);
+        numbers[i] = number;
+        strings[i] = "+" + number;
+      }
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Primitive
+  {
+    LongHashSet set;
+
+    @Setup
+    public void setUp(Keys keys)
+    {
+      long before = usedHeap();
+      set = new LongHashSet(keys.size);
+      for (int i = 0; i < keys.size; i++)
+        set.add(FIRST_NUMBER + (long) i * STRIDE);
+      report("LongHashSet", before, keys.size);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Boxed
+  {
+    Set<String> set;
+
+    @Setup
+    public void setUp(Keys keys)
+    {
+      long before = usedHeap();
+      set = new HashSet<>();
+      for (int i = 0; i < keys.size; i++)
+        set.add("+" + (FIRST_NUMBER + (long) i * STRIDE));
+      report("HashSet<String>", before, keys.size);
+    }
+  }
+
+  private int next;
+
+  @Benchmark
+  public boolean longHashSet(Keys keys, Primitive primitive)
+  {
+    return primitive.set.contains(keys.numbers[next++ & (KEYS - 1)]);
+  }
+
+  @Benchmark
+  public boolean hashSetOfStrings(Keys keys, Boxed boxed)
+  {
+    return boxed.set.contains(keys.strings[next++ & (KEYS - 1)]);
+  }
+
+  private static long usedHeap()
+  {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static void report(String name, long before, int size)
+  {
+    System.out.printf("%n# %s: %.1f bytes per entry for %,d entries%n", name,
+      (double) (usedHeap() - before) / size, size);
+  }
+}
@@ -0,0 +1,87 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachingValidatorBenchmark
+{
+  private static final String REGION = "FR";
+
+  @Param("200000")
+  private int recipients;
+
+  @Param("250000")
+  private int cacheSize;
+
+  private String[] numbers;
+  private BiFunction<String, String, Result<E164Number>> uncached;
+  private CachingPhoneNumberValidator<Result<E164Number>> cached;
+
+  @Setup
+  public void setUp()
+  {
+    numbers = new String[recipients];
+    for (int i = 0; i < recipients; i++)
+      numbers[i] = "+336%08d".formatted(i * 37);
+    uncached = new Notification().phoneNumberValidator;
+    cached = new CachingPhoneNumberValidator<>(uncached, cacheSize);
+    for (String number : numbers)
+      cached.apply(number, REGION);
+  }
+
+  private String next()
+  {
+    return numbers[ThreadLocalRandom.current().nextInt(numbers.length)];
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Result<E164Number> uncached01()
+  {
+    return uncached.apply(next(), REGION);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Result<E164Number> uncached08()
+  {
+    return uncached.apply(next(), REGION);
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Result<E164Number> uncached32()
+  {
+    return uncached.apply(next(), REGION);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Result<E164Number> cached01()
+  {
+    return cached.apply(next(), REGION);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Result<E164Number> cached08()
+  {
+    return cached.apply(next(), REGION);
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Result<E164Number> cached32()
+  {
+    return cached.apply(next(), REGION);
+  }
+}
@@ -0,0 +1,99 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import com.google.i18n.phonenumbers.*;
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static fr.simplex_software.workshop.notifications.i5.Condition.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionBenchmark
+{
+  private static final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+  private static final String REGION = "FR";
+
+  private static final BiFunction<String, String, Result<String>> SELECT = (number, region) ->
+    select(
+      when(() -> new Success<>(number)),
+      when(() -> number == null, () -> nullNumber()),
+      when(() -> number.length() == 0, () -> emptyNumber()),
+      when(() -> isInvalid(number, region), () -> invalidNumber(number, region)));
+
+  private static final BiFunction<String, String, Result<String>> COMPILED = BiCondition.compile(
+    BiCondition.when((number, region) -> new Success<>(number)),
+    BiCondition.when((number, region) -> number == null, (number, region) -> nullNumber()),
+    BiCondition.when((number, region) -> number.length() == 0, (number, region) -> emptyNumber()),
+    BiCondition.when(ConditionBenchmark::isInvalid, ConditionBenchmark::invalidNumber));
+
+  @Param({"VALID", "INVALID", "NULL", "EMPTY"})
+  private PhoneNumberInput input;
+
+  private String number;
+
+  @Setup
+  public void setUp()
+  {
+    number = input.number();
+  }
+
+  private static boolean isInvalid(String number, String region)
+  {
+    try
+    {
+      return !phoneNumberUtil.isValidNumber(phoneNumberUtil.parse(number, region));
+    }
+    catch (NumberParseException e)
+    {
+      return false;
+    }
+  }
+
+  private static Result<String> nullNumber()
+  {
+    return new Failure<>("### The phone number cannot be null.");
+  }
+
+  private static Result<String> emptyNumber()
+  {
+    return new Failure<>("### The phone number cannot not be empty.");
+  }
+
+  private static Result<String> invalidNumber(String number, String region)
+  {
+    return new Failure<>("### The phone number %s is not for region %s".formatted(number, region));
+  }
+
+  @Benchmark
+  public Result<?> selectChain()
+  {
+    return SELECT.apply(number, REGION);
+  }
+
+  @Benchmark
+  public Result<?> compiledChain()
+  {
+    return COMPILED.apply(number, REGION);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-XX:-DoEscapeAnalysis")
+  public Result<?> selectChainWithoutEscapeAnalysis()
+  {
+    return SELECT.apply(number, REGION);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-XX:-DoEscapeAnalysis")
+  public Result<?> compiledChainWithoutEscapeAnalysis()
+  {
+    return COMPILED.apply(number, REGION);
+  }
+}
@@ -0,0 +1,88 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@Threads(4)
+public class DispatcherBenchmark
+{
+  private static final String NUMBER = "0615229808";
+  private static final String REGION = "FR";
+  private static final int CAPACITY = 4_096;
+  private static final int MAX_PRODUCERS = 64;
+  private static final int STRIDE = 16;
+
+  @Param({"BUSY_SPIN", "YIELDING", "PARKING", "EXECUTOR"})
+  private String queue;
+
+  private final AtomicInteger producers = new AtomicInteger();
+  private final AtomicLongArray handled = new AtomicLongArray(MAX_PRODUCERS * STRIDE);
+  private RingBufferDispatcher dispatcher;
+  private ExecutorService executor;
+
+  @Setup
+  public void setUp()
+  {
+    Logging.silence();
+    if ("EXECUTOR".equals(queue))
+      executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(CAPACITY),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+    else
+      dispatcher = new RingBufferDispatcher(CAPACITY, 1, 64, WaitStrategy.valueOf(queue),
+        (phoneNumber, region, message) -> handle(Integer.parseInt(message)));
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    if (dispatcher != null)
+      dispatcher.close();
+    if (executor != null)
+      executor.close();
+  }
+
+  @Benchmark
+  public void publishToHandle(Producer producer)
+  {
+    long target = ++producer.published;
+    if (executor != null)
+      executor.execute(producer.task);
+    else
+      dispatcher.publish(NUMBER, REGION, producer.message);
+    while (handled.get(producer.slot) < target)
+      Thread.yield();
+  }
+
+  private void handle(int slot)
+  {
+    Blackhole.consumeCPU(64);
+    handled.incrementAndGet(slot);
+  }
+
+  @State(Scope.Thread)
+  public static class Producer
+  {
+    private int slot;
+    private String message;
+    private Runnable task;
+    private long published;
+
+    @Setup
+    public void setUp(DispatcherBenchmark benchmark)
+    {
+      slot = benchmark.producers.getAndIncrement() * STRIDE;
+      message = String.valueOf(slot);
+      task = () -> benchmark.handle(slot);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import com.google.i18n.phonenumbers.*;
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GarbageInputBenchmark
+{
+  private static final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+  private static final PhoneNumberParser parser = PhoneNumberParser.getInstance();
+  private static final String REGION = "FR";
+  private static final int INPUTS = 1_024;
+
+  private final String[] numbers = new String[INPUTS];
+  private fr.simplex_software.workshop.notifications.i5.Notification i5;
+  private int next;
+
+  @Setup
+  public void setUp()
+  {
+    Logging.silence();
+    i5 = new fr.simplex_software.workshop.notifications.i5.Notification();
+    Random random = new Random(42);
+    for (int i = 0; i < INPUTS; i++)
+      numbers[i] = switch (i % 6)
+      {
+        case 0 -> "not a phone number " + i;
+        case 1 -> Integer.toString(random.nextInt(10));
+        case 2 -> "+999" + (100_000 + random.nextInt(900_000));
+        case 3 -> "+33" + (100_000_000_000L + random.nextLong(900_000_000_000L));
+        case 4 -> "+0" + (100_000_000 + random.nextInt(900_000_000));
+        default -> "x".repeat(1 + random.nextInt(5)) + random.nextInt(10);
+      };
+  }
+
+  private String nextNumber()
+  {
+    return numbers[next++ & (INPUTS - 1)];
+  }
+
+  @Benchmark
+  public Object catchingParse()
+  {
+    try
+    {
+      return phoneNumberUtil.parse(nextNumber(), REGION);
+    }
+    catch (NumberParseException e)
+    {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object resultParse()
+  {
+    return parser.parse(nextNumber(), REGION);
+  }
+
+  @Benchmark
+  public Object i4()
+  {
+    return fr.simplex_software.workshop.notifications.i4.Notification.phoneNumberValidator.apply(nextNumber(), REGION);
+  }
+
+  @Benchmark
+  public Object i5()
+  {
+    return i5.phoneNumberValidator.apply(nextNumber(), REGION);
+  }
+}
@@ -0,0 +1,62 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.*;
+import java.time.*;
+import java.util.concurrent.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class IdempotencyBenchmark
+{
+  private static final long FIRST_NUMBER = 33_600_000_000L;
+  private static final Duration WINDOW = Duration.ofHours(1);
+  private static final String MESSAGE = "Your verification code is 123456";
+
+  @Param({"1000000", "10000000"})
+  int keysPerHour;
+
+  private IdempotencyWindow window;
+  private long now;
+  private long step;
+  private long sequence;
+
+  @Setup
+  public void setUp()
+  {
+    window = null;
+    long before = usedHeap();
+    step = WINDOW.toNanos() / keysPerHour;
+    window = new IdempotencyWindow(WINDOW, () -> now);
+    for (int i = 0; i < keysPerHour; i++)
+      check();
+    System.out.printf("%n# IdempotencyWindow: %.1f bytes per key for %,d keys per hour%n",
+      (double) (usedHeap() - before) / window.stats().trackedKeys(), keysPerHour);
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    System.out.printf("%n# IdempotencyWindow: %s%n", window.stats());
+  }
+
+  @Benchmark
+  public Result<E164Number> check()
+  {
+    now += step;
+    long number = FIRST_NUMBER + (sequence++ >>> 1);
+    return window.check(new E164Number(number, "FR"), MESSAGE);
+  }
+
+  private static long usedHeap()
+  {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+}
@@ -0,0 +1,17 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import java.util.logging.*;
+
+final class Logging
+{
+  private static final Logger ROOT = Logger.getLogger("");
+
+  private Logging()
+  {
+  }
+
+  static void silence()
+  {
+    ROOT.setLevel(Level.WARNING);
+  }
+}
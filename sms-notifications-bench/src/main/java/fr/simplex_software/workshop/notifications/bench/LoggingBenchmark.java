@@ -0,0 +1,71 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark
+{
+  private static final String REGION = "FR";
+  private static final String MESSAGE = "Salut !";
+
+  @Param({"VALID", "NULL"})
+  private PhoneNumberInput input;
+
+  @Param({"OFF", "INFO"})
+  private String level;
+
+  private Notification notification;
+  private Handler[] handlers;
+
+  @Setup
+  public void setUp()
+  {
+    Logger root = Logger.getLogger("");
+    handlers = root.getHandlers();
+    for (Handler handler : handlers)
+      root.removeHandler(handler);
+    root.addHandler(new DiscardingHandler());
+    root.setLevel(java.util.logging.Level.parse(level));
+    notification = new Notification();
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    Logger root = Logger.getLogger("");
+    for (Handler handler : root.getHandlers())
+      root.removeHandler(handler);
+    for (Handler handler : handlers)
+      root.addHandler(handler);
+  }
+
+  @Benchmark
+  public void sendNotification()
+  {
+    notification.sendNotification(input.number(), REGION, MESSAGE);
+  }
+
+  private static class DiscardingHandler extends Handler
+  {
+    @Override
+    public void publish(LogRecord record)
+    {
+      record.getMessage();
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+  }
+}
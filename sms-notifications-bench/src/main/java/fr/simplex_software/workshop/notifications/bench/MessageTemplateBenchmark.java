@@ -0,0 +1,45 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageTemplateBenchmark
+{
+  private static final String FORMAT = "Hello %s, your order %d ships on %s. Reply STOP to opt out.";
+  private static final MessageTemplate TEMPLATE =
+    MessageTemplate.compile("Hello {name}, your order {order} ships on {date}. Reply STOP to opt out.");
+  private static final String[] NAMES = {"Ann", "Bob", "Chloé", "Dmitri"};
+
+  private final StringBuilder reused = new StringBuilder(128);
+  private int next;
+
+  @Benchmark
+  public String formatted()
+  {
+    int i = next++;
+    return FORMAT.formatted(NAMES[i & 3], i, "2024-05-01");
+  }
+
+  @Benchmark
+  public String template()
+  {
+    int i = next++;
+    return TEMPLATE.render(NAMES[i & 3], i, "2024-05-01");
+  }
+
+  @Benchmark
+  public int templateIntoReusedBuilder()
+  {
+    int i = next++;
+    reused.setLength(0);
+    return TEMPLATE.renderTo(reused, NAMES[i & 3], i, "2024-05-01").length();
+  }
+}
@@ -0,0 +1,54 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 15, time = 1)
+@Fork(8)
+public class MetricsOverheadBenchmark
+{
+  private static final String REGION = "FR";
+  private static final String MESSAGE = "Salut !";
+  private static final String[] NUMBERS = {
+    "0615229808", "+33 6 15 22 98 09", "06.15.22.98.10", "0615229811", "0615229812",
+    "0615229813", "0615229814", "0615229815", "0615229816", "not a number"
+  };
+
+  private static final Result<String> SUCCESS = new Success<>("+33615229808");
+
+  @Param({"true", "false"})
+  private boolean metrics;
+
+  private Notification notification;
+  private NotificationMetrics recorder;
+  private int next;
+
+  @Setup
+  public void setUp()
+  {
+    Logging.silence();
+    SmsGateway gateway = (phoneNumber, message) -> new Success<>(phoneNumber.toString());
+    recorder = metrics ? new NotificationMetrics() : NotificationMetrics.disabled();
+    SmsService smsService = new SmsService(gateway, 1_000, RetryPolicy.none(), (message, attempts, lastError) -> {},
+      recorder);
+    notification = new Notification(smsService);
+  }
+
+  @Benchmark
+  public void sendNotification()
+  {
+    notification.sendNotification(NUMBERS[next++ % NUMBERS.length], REGION, MESSAGE);
+  }
+
+  @Benchmark
+  public long record()
+  {
+    return recorder.record(PipelineStage.SEND, recorder.start(), SUCCESS);
+  }
+}
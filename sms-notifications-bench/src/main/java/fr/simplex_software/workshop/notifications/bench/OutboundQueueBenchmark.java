@@ -0,0 +1,55 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutboundQueueBenchmark
+{
+  private static final SmsMessage MESSAGE =
+    new SmsMessage(new E164Number(33615229808L, "FR"), "Your verification code is 123456");
+
+  private Path directory;
+  private OutboundQueue queue;
+
+  @Setup(Level.Iteration)
+  public void setUp() throws IOException
+  {
+    directory = Files.createTempDirectory("outbound-queue");
+    queue = OutboundQueue.open(directory);
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() throws IOException
+  {
+    queue.close();
+    try (var files = Files.list(directory))
+    {
+      for (Path file : files.toList())
+        Files.delete(file);
+    }
+    Files.delete(directory);
+  }
+
+  @Benchmark
+  public CompletableFuture<Void> enqueue()
+  {
+    return queue.enqueue(MESSAGE);
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Result<String> sendAndAwaitCommit()
+  {
+    return queue.send(MESSAGE.phoneNumber(), MESSAGE.message());
+  }
+}
@@ -0,0 +1,22 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+public enum PhoneNumberInput
+{
+  VALID("+33615229808"),
+  INVALID("+33615229808123"),
+  NULL(null),
+  EMPTY(""),
+  UNPARSEABLE("not a phone number");
+
+  private final String number;
+
+  PhoneNumberInput(String number)
+  {
+    this.number = number;
+  }
+
+  public String number()
+  {
+    return number;
+  }
+}
@@ -0,0 +1,49 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import com.google.i18n.phonenumbers.*;
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreFilterBenchmark
+{
+  private static final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+  private static final PhoneNumberPreFilter preFilter = PhoneNumberPreFilter.getInstance();
+  private static final String REGION = "FR";
+
+  @Param({"+33615229808123", "not a phone number", "+999123456789", "+3361"})
+  private String number;
+
+  @Setup
+  public void setUp()
+  {
+    if (!preFilter.rejects(number, REGION))
+      throw new IllegalStateException("### %s is not rejected by the pre-filter".formatted(number));
+  }
+
+  @Benchmark
+  public boolean preFilter()
+  {
+    return preFilter.rejects(number, REGION);
+  }
+
+  @Benchmark
+  public boolean libphonenumber()
+  {
+    try
+    {
+      return !phoneNumberUtil.isValidNumber(phoneNumberUtil.parse(number, REGION));
+    }
+    catch (NumberParseException e)
+    {
+      return true;
+    }
+  }
+}
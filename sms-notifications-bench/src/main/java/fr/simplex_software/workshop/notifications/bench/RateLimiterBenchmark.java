@@ -0,0 +1,80 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class RateLimiterBenchmark
+{
+  private static final int RECIPIENTS = 1 << 20;
+  private static final String[] REGIONS = {"FR", "DE", "GB", "US", "IT", "ES", "BE", "NL"};
+  private static final int PERMITS = 10;
+  private static final long WINDOW = Duration.ofHours(1).toNanos();
+  private static final RateLimit PER_RECIPIENT = new RateLimit(PERMITS, Duration.ofNanos(WINDOW));
+  private static final RateLimit PER_REGION = new RateLimit(1_000_000_000, Duration.ofSeconds(1));
+
+  private final E164Number[] numbers = new E164Number[RECIPIENTS];
+  private RateLimiter limiter;
+  private ConcurrentHashMap<Long, long[]> sent;
+
+  @State(Scope.Thread)
+  public static class Cursor
+  {
+    private int next = ThreadLocalRandom.current().nextInt(RECIPIENTS);
+
+    private int next()
+    {
+      next = (next + 0x9E3779B9) & (RECIPIENTS - 1);
+      return next;
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void setUp()
+  {
+    for (int i = 0; i < RECIPIENTS; i++)
+      numbers[i] = new E164Number(33_600_000_000L + i, REGIONS[i & (REGIONS.length - 1)]);
+    limiter = new RateLimiter(PER_RECIPIENT, PER_REGION);
+    sent = new ConcurrentHashMap<>();
+  }
+
+  @Benchmark
+  public Result<E164Number> stripedPrimitiveMap(Cursor cursor)
+  {
+    return limiter.check(numbers[cursor.next()]);
+  }
+
+  @Benchmark
+  public boolean concurrentHashMap(Cursor cursor)
+  {
+    long now = System.nanoTime();
+    boolean[] allowed = new boolean[1];
+    sent.compute(numbers[cursor.next()].value(), (key, log) ->
+    {
+      if (log == null)
+      {
+        log = new long[PERMITS + 1];
+        Arrays.fill(log, 1, PERMITS + 1, now - WINDOW);
+      }
+      int head = (int) log[0];
+      allowed[0] = log[1 + head] + WINDOW - now <= 0;
+      if (allowed[0])
+      {
+        log[1 + head] = now;
+        log[0] = (head + 1) % PERMITS;
+      }
+      return log;
+    });
+    return allowed[0];
+  }
+}
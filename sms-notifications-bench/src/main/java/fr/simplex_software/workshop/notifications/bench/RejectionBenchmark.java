@@ -0,0 +1,82 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class RejectionBenchmark
+{
+  private static final String REGION = "FR";
+  private static final int INPUTS = 1_024;
+  private static final MessageTemplate WRONG_REGION =
+    MessageTemplate.compile("### The phone number {number} is not for region {region}");
+
+  private final String[] numbers = new String[INPUTS];
+  private final List<Recipient> recipients = new ArrayList<>(INPUTS);
+  private Notification notification;
+  private int next;
+
+  @Setup
+  public void setUp()
+  {
+    Logging.silence();
+    notification = new Notification(new SmsService(new FakeSmsGateway(Duration.ZERO), 1));
+    Random random = new Random(42);
+    for (int i = 0; i < INPUTS; i++)
+    {
+      numbers[i] = switch (i % 3)
+      {
+        case 0 -> "not a phone number";
+        case 1 -> "+999" + (100_000 + random.nextInt(900_000));
+        default -> "+33" + (100_000_000_000L + random.nextLong(900_000_000_000L));
+      };
+      recipients.add(new Recipient(numbers[i], REGION));
+    }
+  }
+
+  private String nextNumber()
+  {
+    return numbers[next++ & (INPUTS - 1)];
+  }
+
+  @Benchmark
+  public Object formattedFailure()
+  {
+    return new Failure<>("### The phone number %s is not valid for region %s".formatted(nextNumber(), REGION));
+  }
+
+  @Benchmark
+  public Object concatenatedFailure()
+  {
+    return new Failure<>(FailureReason.WRONG_REGION,
+      "### The phone number " + nextNumber() + " is not for region " + REGION);
+  }
+
+  @Benchmark
+  public Object templatedFailure()
+  {
+    return new Failure<>(FailureReason.WRONG_REGION, WRONG_REGION, nextNumber(), REGION);
+  }
+
+  @Benchmark
+  public Object rejectOne()
+  {
+    return notification.phoneNumberValidator.apply(nextNumber(), REGION);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(INPUTS)
+  public Object rejectBatch()
+  {
+    return notification.validateAll(recipients);
+  }
+}
@@ -0,0 +1,90 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.*;
+import java.time.*;
+import java.util.concurrent.*;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class RetrySchedulingBenchmark
+{
+  private static final int PENDING = 2_000_000;
+  private static final long DELAY = TimeUnit.HOURS.toNanos(1);
+  private static final Runnable RETRY = () -> {};
+
+  @State(Scope.Benchmark)
+  public static class Wheel
+  {
+    TimingWheel<Runnable> wheel;
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+      long before = usedHeap();
+      wheel = new TimingWheel<>(Duration.ofMillis(10), 4_096, Runnable::run);
+      for (int i = 0; i < PENDING; i++)
+        wheel.schedule(RETRY, DELAY + i);
+      report("TimingWheel", before);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown()
+    {
+      wheel.close();
+      wheel = null;
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Executor
+  {
+    ScheduledThreadPoolExecutor executor;
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+      long before = usedHeap();
+      executor = new ScheduledThreadPoolExecutor(1);
+      for (int i = 0; i < PENDING; i++)
+        executor.schedule(RETRY, DELAY + i, TimeUnit.NANOSECONDS);
+      report("ScheduledThreadPoolExecutor", before);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown()
+    {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  @Benchmark
+  public boolean timingWheel(Wheel wheel)
+  {
+    return wheel.wheel.schedule(RETRY, DELAY);
+  }
+
+  @Benchmark
+  public Object scheduledExecutor(Executor executor)
+  {
+    return executor.executor.schedule(RETRY, DELAY, TimeUnit.NANOSECONDS);
+  }
+
+  private static long usedHeap()
+  {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static void report(String name, long before)
+  {
+    System.out.printf("%n# %s: %.1f bytes per pending retry for %,d retries%n", name,
+      (double) (usedHeap() - before) / PENDING, PENDING);
+  }
+}
@@ -0,0 +1,103 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SendNotificationBenchmark
+{
+  private static final String REGION = "FR";
+  private static final String MESSAGE = "Salut !";
+
+  @Param
+  private PhoneNumberInput input;
+
+  private String number;
+  private fr.simplex_software.workshop.notifications.initial.Notification initial;
+  private fr.simplex_software.workshop.notifications.i1.Notification i1;
+  private fr.simplex_software.workshop.notifications.i2.Notification i2;
+  private fr.simplex_software.workshop.notifications.i3.Notification i3;
+  private fr.simplex_software.workshop.notifications.i4.Notification i4;
+  private fr.simplex_software.workshop.notifications.i5.Notification i5;
+
+  @Setup
+  public void setUp()
+  {
+    Logging.silence();
+    number = input.number();
+    initial = new fr.simplex_software.workshop.notifications.initial.Notification();
+    i1 = new fr.simplex_software.workshop.notifications.i1.Notification();
+    i2 = new fr.simplex_software.workshop.notifications.i2.Notification();
+    i3 = new fr.simplex_software.workshop.notifications.i3.Notification();
+    i4 = new fr.simplex_software.workshop.notifications.i4.Notification();
+    i5 = new fr.simplex_software.workshop.notifications.i5.Notification();
+  }
+
+  @Benchmark
+  public Object initial()
+  {
+    try
+    {
+      initial.sendNotification(number, REGION, MESSAGE);
+      return null;
+    }
+    catch (IllegalArgumentException e)
+    {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object i1()
+  {
+    try
+    {
+      i1.sendNotification(number, REGION, MESSAGE);
+      return null;
+    }
+    catch (IllegalArgumentException e)
+    {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object i2()
+  {
+    try
+    {
+      i2.sendNotification(number, REGION, MESSAGE);
+      return null;
+    }
+    catch (IllegalArgumentException e)
+    {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Runnable i3()
+  {
+    Runnable action = i3.sendNotification(number, REGION, MESSAGE);
+    action.run();
+    return action;
+  }
+
+  @Benchmark
+  public void i4()
+  {
+    i4.sendNotification(number, REGION, MESSAGE);
+  }
+
+  @Benchmark
+  public void i5()
+  {
+    i5.sendNotification(number, REGION, MESSAGE);
+  }
+}
@@ -0,0 +1,55 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class SmsEncoderBenchmark
+{
+  private static final int MESSAGES = 1_000_000;
+  private static final String[] TEMPLATES = {
+    "Your verification code is %d. It expires in 10 minutes.",
+    "Bonjour, votre colis n°%d sera livré demain entre 8h et 12h. Répondez STOP pour ne plus recevoir de SMS.",
+    "Reminder: your appointment #%d is confirmed for tomorrow at 10:30 {room [B]}. Price: 25€. "
+      + "Please arrive 15 minutes early and bring your ID card and insurance documents. Thank you!",
+    "Ваш код подтверждения: %d",
+    "您的验证码是 %d，请在十分钟内输入。😀",
+    "Ihre Bestellung %d wurde versandt. Vielen Dank für Ihren Einkauf bei uns – bis bald!"
+  };
+
+  private final String[] messages = new String[MESSAGES];
+  private final SmsEncoder encoder = new SmsEncoder();
+
+  @Setup
+  public void setUp()
+  {
+    Random random = new Random(19);
+    for (int i = 0; i < MESSAGES; i++)
+      messages[i] = TEMPLATES[random.nextInt(TEMPLATES.length)].formatted(random.nextInt(1_000_000));
+  }
+
+  @Benchmark
+  public void encode(Blackhole blackhole)
+  {
+    for (int i = 0; i < MESSAGES; i++)
+      blackhole.consume(encoder.encode(messages[i], i));
+  }
+
+  @Benchmark
+  public long segmentCount()
+  {
+    long segments = 0;
+    for (int i = 0; i < MESSAGES; i++)
+      segments += SmsEncoder.segmentCount(messages[i]);
+    return segments;
+  }
+}
@@ -0,0 +1,45 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark
+{
+  private static final List<String> REGIONS = List.of("FR", "DE", "GB", "US");
+  private static final List<Recipient> FIRST_REQUESTS = List.of(
+    new Recipient("+33615229808", "FR"),
+    new Recipient("+4915123456789", "DE"),
+    new Recipient("+447400123456", "GB"),
+    new Recipient("+12015550123", "US"));
+
+  @Param({"false", "true"})
+  private boolean warmUp;
+
+  private Notification notification;
+
+  @Setup(Level.Trial)
+  public void setUp()
+  {
+    Logging.silence();
+    notification = new Notification();
+    if (warmUp)
+      Notification.warmUp(REGIONS);
+  }
+
+  @Benchmark
+  public void timeToFirstValidation(Blackhole blackhole)
+  {
+    for (Recipient recipient : FIRST_REQUESTS)
+      blackhole.consume(notification.phoneNumberValidator.apply(recipient.number(), recipient.region()));
+  }
+}
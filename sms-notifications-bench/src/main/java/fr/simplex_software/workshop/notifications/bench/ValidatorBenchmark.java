@@ -0,0 +1,62 @@
+package fr.simplex_software.workshop.notifications.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark
+{
+  private static final String REGION = "FR";
+
+  @Param
+  private PhoneNumberInput input;
+
+  private String number;
+  private fr.simplex_software.workshop.notifications.i1.Notification i1;
+  private fr.simplex_software.workshop.notifications.i5.Notification i5;
+
+  @Setup
+  public void setUp()
+  {
+    Logging.silence();
+    number = input.number();
+    i1 = new fr.simplex_software.workshop.notifications.i1.Notification();
+    i5 = new fr.simplex_software.workshop.notifications.i5.Notification();
+  }
+
+  @Benchmark
+  public Object i1()
+  {
+    return i1.phoneNumberValidator.apply(number, REGION);
+  }
+
+  @Benchmark
+  public Object i2()
+  {
+    return fr.simplex_software.workshop.notifications.i2.Notification.phoneNumberValidator.apply(number, REGION);
+  }
+
+  @Benchmark
+  public Object i3()
+  {
+    return fr.simplex_software.workshop.notifications.i3.Notification.phoneNumberValidator.apply(number, REGION);
+  }
+
+  @Benchmark
+  public Object i4()
+  {
+    return fr.simplex_software.workshop.notifications.i4.Notification.phoneNumberValidator.apply(number, REGION);
+  }
+
+  @Benchmark
+  public Object i5()
+  {
+    return i5.phoneNumberValidator.apply(number, REGION);
+  }
+}
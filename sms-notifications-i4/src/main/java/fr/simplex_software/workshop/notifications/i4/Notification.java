@@ -10,7 +10,7 @@ public class Notification
   private static final Logger LOG = Logger.getLogger(Notification.class.getName());
   private static final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
 
-  static BiFunction<String, String, Result<String>> phoneNumberValidator = (number, region) ->
+  public static BiFunction<String, String, Result<String>> phoneNumberValidator = (number, region) ->
   {
     try
     {
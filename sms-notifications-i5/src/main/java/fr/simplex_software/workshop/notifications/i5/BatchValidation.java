@@ -0,0 +1,84 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+final class BatchValidation<R>
+{
+  private final BiFunction<String, String, R> validator;
+  private final int sequentialThreshold;
+
+  BatchValidation(BiFunction<String, String, R> validator, int sequentialThreshold)
+  {
+    this.validator = Objects.requireNonNull(validator);
+    this.sequentialThreshold = sequentialThreshold;
+  }
+
+  @SuppressWarnings("unchecked")
+  List<R> validate(List<Recipient> recipients)
+  {
+    int size = recipients.size();
+    Map<Recipient, Integer> indexes = new HashMap<>();
+    List<Recipient> distinct = new ArrayList<>();
+    int[] slots = new int[size];
+    for (int i = 0; i < size; i++)
+    {
+      Recipient recipient = Objects.requireNonNull(recipients.get(i));
+      Integer index = indexes.putIfAbsent(recipient, distinct.size());
+      if (index == null)
+      {
+        index = distinct.size();
+        distinct.add(recipient);
+      }
+      slots[i] = index;
+    }
+    Object[] results = new Object[distinct.size()];
+    if (distinct.size() <= sequentialThreshold)
+      validate(distinct, results, 0, distinct.size());
+    else
+      ForkJoinPool.commonPool().invoke(new ValidationTask(distinct, results, 0, distinct.size()));
+    Object[] ordered = new Object[size];
+    for (int i = 0; i < size; i++)
+      ordered[i] = results[slots[i]];
+    return (List<R>) Collections.unmodifiableList(Arrays.asList(ordered));
+  }
+
+  private void validate(List<Recipient> recipients, Object[] results, int from, int to)
+  {
+    for (int i = from; i < to; i++)
+    {
+      Recipient recipient = recipients.get(i);
+      results[i] = validator.apply(recipient.number(), recipient.region());
+    }
+  }
+
+  private final class ValidationTask extends RecursiveAction
+  {
+    private final List<Recipient> recipients;
+    private final Object[] results;
+    private final int from;
+    private final int to;
+
+    private ValidationTask(List<Recipient> recipients, Object[] results, int from, int to)
+    {
+      this.recipients = recipients;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (to - from <= sequentialThreshold)
+        validate(recipients, results, from, to);
+      else
+      {
+        int middle = (from + to) >>> 1;
+        invokeAll(new ValidationTask(recipients, results, from, middle),
+          new ValidationTask(recipients, results, middle, to));
+      }
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class BatchingSmsGateway implements SmsGateway, AutoCloseable
+{
+  private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final MessageTemplate UNEXPECTED =
+    MessageTemplate.compile("### Unexpected exception while sending SMS to {number}: {error}");
+  private static final MessageTemplate CLOSED =
+    MessageTemplate.compile("### The gateway is closed, SMS to {number} not sent");
+
+  private final SmsGateway transport;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+  private final Thread flusher;
+  private volatile boolean running = true;
+
+  public BatchingSmsGateway(SmsGateway transport, int maxBatchSize, Duration maxDelay)
+  {
+    if (maxBatchSize <= 0)
+      throw new IllegalArgumentException("### The maximum batch size must be positive: %d".formatted(maxBatchSize));
+    this.transport = Objects.requireNonNull(transport);
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelay.toNanos();
+    this.flusher = Thread.ofPlatform().name("sms-batch-flusher").daemon().start(this::run);
+  }
+
+  @Override
+  public Result<String> send(E164Number phoneNumber, String message)
+  {
+    return submit(phoneNumber, message).join();
+  }
+
+  @Override
+  public List<Result<String>> sendBatch(List<SmsMessage> messages)
+  {
+    List<CompletableFuture<Result<String>>> deliveries = new ArrayList<>(messages.size());
+    for (SmsMessage message : messages)
+      deliveries.add(submit(message.phoneNumber(), message.message()));
+    return deliveries.stream().map(CompletableFuture::join).toList();
+  }
+
+  public CompletableFuture<Result<String>> submit(E164Number phoneNumber, String message)
+  {
+    if (!running)
+      return CompletableFuture.completedFuture(closed(phoneNumber));
+    Pending pending = new Pending(new SmsMessage(phoneNumber, message), new CompletableFuture<>(), System.nanoTime());
+    queue.add(pending);
+    if (!running && queue.remove(pending))
+      pending.delivery().complete(closed(phoneNumber));
+    return pending.delivery();
+  }
+
+  @Override
+  public void close()
+  {
+    running = false;
+    try
+    {
+      flusher.join();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    for (Pending pending = queue.poll(); pending != null; pending = queue.poll())
+      pending.delivery().complete(closed(pending.message().phoneNumber()));
+  }
+
+  private void run()
+  {
+    List<Pending> batch = new ArrayList<>(maxBatchSize);
+    try
+    {
+      while (running || !queue.isEmpty())
+      {
+        Pending first = queue.poll(IDLE_POLL_NANOS, TimeUnit.NANOSECONDS);
+        if (first == null)
+          continue;
+        batch.add(first);
+        long deadline = first.enqueuedAt() + maxDelayNanos;
+        while (batch.size() < maxBatchSize)
+        {
+          queue.drainTo(batch, maxBatchSize - batch.size());
+          long remaining = deadline - System.nanoTime();
+          if (batch.size() >= maxBatchSize || remaining <= 0 || !running)
+            break;
+          Pending next = queue.poll(Math.min(remaining, IDLE_POLL_NANOS), TimeUnit.NANOSECONDS);
+          if (next != null)
+            batch.add(next);
+        }
+        flush(batch);
+        batch.clear();
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void flush(List<Pending> batch)
+  {
+    List<SmsMessage> messages = new ArrayList<>(batch.size());
+    for (Pending pending : batch)
+      messages.add(pending.message());
+    try
+    {
+      List<Result<String>> results = transport.sendBatch(messages);
+      for (int i = 0; i < batch.size(); i++)
+        batch.get(i).delivery().complete(results.get(i));
+    }
+    catch (RuntimeException e)
+    {
+      for (Pending pending : batch)
+        pending.delivery().complete(new Failure<>(FailureReason.GATEWAY_ERROR, UNEXPECTED,
+          pending.message().phoneNumber(), e.getMessage()));
+    }
+  }
+
+  private static Result<String> closed(E164Number phoneNumber)
+  {
+    return new Failure<>(FailureReason.GATEWAY_CLOSED, CLOSED, phoneNumber);
+  }
+
+  private record Pending(SmsMessage message, CompletableFuture<Result<String>> delivery, long enqueuedAt)
+  {
+  }
+}
@@ -0,0 +1,56 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.function.*;
+
+public class BiCondition<A, B, T> extends Tuple<BiPredicate<A, B>, BiFunction<A, B, Result<T>>>
+{
+  public BiCondition(BiPredicate<A, B> condition, BiFunction<A, B, Result<T>> result)
+  {
+    super(condition, result);
+  }
+
+  public static <A, B, T> BiCondition<A, B, T> when(BiPredicate<A, B> condition, BiFunction<A, B, Result<T>> value)
+  {
+    return new BiCondition<>(condition, value);
+  }
+
+  public static <A, B, T> BiCondition<A, B, T> when(BiFunction<A, B, Result<T>> value)
+  {
+    return new BiCondition<>((a, b) -> true, value);
+  }
+
+  @SafeVarargs
+  public static <A, B, T> BiFunction<A, B, Result<T>> compile(BiCondition<A, B, T> defaultCondition,
+    BiCondition<A, B, T>... matchers)
+  {
+    return new CompiledCondition<>(defaultCondition, matchers);
+  }
+
+  private static final class CompiledCondition<A, B, T> implements BiFunction<A, B, Result<T>>
+  {
+    private final BiPredicate<A, B>[] conditions;
+    private final BiFunction<A, B, Result<T>>[] values;
+    private final BiFunction<A, B, Result<T>> defaultValue;
+
+    @SuppressWarnings("unchecked")
+    private CompiledCondition(BiCondition<A, B, T> defaultCondition, BiCondition<A, B, T>[] matchers)
+    {
+      conditions = new BiPredicate[matchers.length];
+      values = new BiFunction[matchers.length];
+      for (int i = 0; i < matchers.length; i++)
+      {
+        conditions[i] = matchers[i].getFirst();
+        values[i] = matchers[i].getSecond();
+      }
+      defaultValue = defaultCondition.getSecond();
+    }
+
+    @Override
+    public Result<T> apply(A a, B b)
+    {
+      for (int i = 0; i < conditions.length; i++)
+        if (conditions[i].test(a, b)) return values[i].apply(a, b);
+      return defaultValue.apply(a, b);
+    }
+  }
+}
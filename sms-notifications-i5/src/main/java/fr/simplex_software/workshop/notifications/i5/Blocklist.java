@@ -0,0 +1,100 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+
+public class Blocklist implements SendGuard
+{
+  private static final MessageTemplate OPTED_OUT =
+    MessageTemplate.compile("### The phone number {number} has opted out");
+
+  private final LongHashSet numbers;
+
+  public Blocklist()
+  {
+    this(new LongHashSet());
+  }
+
+  private Blocklist(LongHashSet numbers)
+  {
+    this.numbers = numbers;
+  }
+
+  public static Blocklist load(Path path) throws IOException
+  {
+    LongHashSet numbers = new LongHashSet((int) Math.min(Files.size(path) / 12, Integer.MAX_VALUE / 2));
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII))
+    {
+      int lineNumber = 0;
+      for (String line = reader.readLine(); line != null; line = reader.readLine())
+      {
+        lineNumber++;
+        long number = parse(line);
+        if (number < 0)
+          throw new IOException("### Invalid E.164 number at %s:%d: %s".formatted(path, lineNumber, line));
+        if (number > 0)
+          numbers.add(number);
+      }
+    }
+    return new Blocklist(numbers);
+  }
+
+  public boolean add(E164Number phoneNumber)
+  {
+    return numbers.add(phoneNumber.value());
+  }
+
+  public boolean remove(E164Number phoneNumber)
+  {
+    return numbers.remove(phoneNumber.value());
+  }
+
+  public boolean contains(E164Number phoneNumber)
+  {
+    return numbers.contains(phoneNumber.value());
+  }
+
+  public int size()
+  {
+    return numbers.size();
+  }
+
+  @Override
+  public Result<E164Number> check(E164Number phoneNumber, String message)
+  {
+    return check(phoneNumber);
+  }
+
+  public Result<E164Number> check(E164Number phoneNumber)
+  {
+    return contains(phoneNumber)
+      ? new Failure<>(FailureReason.OPTED_OUT, OPTED_OUT, phoneNumber)
+      : new Success<>(phoneNumber);
+  }
+
+  private static long parse(String line)
+  {
+    int start = 0;
+    int end = line.length();
+    while (start < end && line.charAt(start) == ' ')
+      start++;
+    while (end > start && line.charAt(end - 1) == ' ')
+      end--;
+    if (start == end || line.charAt(start) == '#')
+      return 0;
+    if (line.charAt(start) == '+')
+      start++;
+    if (end - start == 0 || end - start > 15 || line.charAt(start) == '0')
+      return -1;
+    long number = 0;
+    for (int i = start; i < end; i++)
+    {
+      char c = line.charAt(i);
+      if (c < '0' || c > '9')
+        return -1;
+      number = number * 10 + (c - '0');
+    }
+    return number;
+  }
+}
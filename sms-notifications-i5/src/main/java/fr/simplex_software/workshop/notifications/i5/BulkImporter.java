@@ -0,0 +1,190 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+public final class BulkImporter
+{
+  public static final byte ACCEPTED = 0;
+  private static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+  private static final int NUMBER_SCRATCH_SIZE = 64;
+  private static final FailureReason[] REASONS = FailureReason.values();
+  private static final String[] REGIONS = new String[26 * 26];
+
+  static
+  {
+    for (int i = 0; i < REGIONS.length; i++)
+      REGIONS[i] = new String(new char[] {(char) ('A' + i / 26), (char) ('A' + i % 26)});
+  }
+
+  private final BiFunction<String, String, ? extends Result<?>> validator;
+  private final int workers;
+  private final int chunkSize;
+
+  public BulkImporter(BiFunction<String, String, ? extends Result<?>> validator, int workers)
+  {
+    this(validator, workers, DEFAULT_CHUNK_SIZE);
+  }
+
+  public BulkImporter(BiFunction<String, String, ? extends Result<?>> validator, int workers, int chunkSize)
+  {
+    if (workers <= 0)
+      throw new IllegalArgumentException("### The number of workers must be positive: %d".formatted(workers));
+    if (chunkSize <= 0)
+      throw new IllegalArgumentException("### The chunk size must be positive: %d".formatted(chunkSize));
+    this.validator = Objects.requireNonNull(validator);
+    this.workers = workers;
+    this.chunkSize = chunkSize;
+  }
+
+  public static FailureReason reasonOf(byte code)
+  {
+    if (code == ACCEPTED)
+      throw new IllegalArgumentException("### The code %d marks an accepted line".formatted(code));
+    return REASONS[code - 1];
+  }
+
+  public ImportSummary importFile(Path input, Path report) throws IOException
+  {
+    long[] counts = new long[REASONS.length + 1];
+    try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+         FileChannel out = FileChannel.open(report, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+           StandardOpenOption.TRUNCATE_EXISTING);
+         ExecutorService executor = Executors.newFixedThreadPool(workers,
+           Thread.ofPlatform().name("sms-import-", 0).daemon().factory()))
+    {
+      ArrayDeque<Future<byte[]>> chunks = new ArrayDeque<>();
+      long size = in.size();
+      for (long position = 0; position < size; )
+      {
+        MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, size - position));
+        int length = position + mapped.capacity() == size ? mapped.capacity() : lastLineEnd(mapped);
+        if (length == 0)
+          throw new IOException("### The line at offset %d is longer than the chunk size of %d bytes"
+            .formatted(position, chunkSize));
+        ByteBuffer lines = mapped.slice(0, length);
+        position += length;
+        if (chunks.size() == workers * 2)
+          write(out, await(chunks.poll()), counts);
+        chunks.add(executor.submit(() -> validate(lines)));
+      }
+      while (!chunks.isEmpty())
+        write(out, await(chunks.poll()), counts);
+    }
+    return summary(counts);
+  }
+
+  private byte[] validate(ByteBuffer lines)
+  {
+    byte[] scratch = new byte[NUMBER_SCRATCH_SIZE];
+    byte[] codes = new byte[Math.max(16, lines.limit() >>> 5)];
+    int count = 0;
+    int limit = lines.limit();
+    for (int start = 0; start < limit; )
+    {
+      int end = indexOf(lines, start, limit, '\n');
+      int lineEnd = end > start && lines.get(end - 1) == '\r' ? end - 1 : end;
+      int numberEnd = indexOf(lines, start, lineEnd, ',');
+      int regionEnd = numberEnd < lineEnd ? indexOf(lines, numberEnd + 1, lineEnd, ',') : lineEnd;
+      String number = ascii(lines, start, numberEnd, scratch);
+      String region = region(lines, Math.min(numberEnd + 1, regionEnd), regionEnd, scratch);
+      if (count == codes.length)
+        codes = Arrays.copyOf(codes, count << 1);
+      codes[count++] = codeOf(validator.apply(number, region));
+      start = end + 1;
+    }
+    return Arrays.copyOf(codes, count);
+  }
+
+  private static byte codeOf(Result<?> result)
+  {
+    if (result.isSuccess())
+      return ACCEPTED;
+    FailureReason reason = result instanceof Failure<?> failure ? failure.reason() : FailureReason.UNSPECIFIED;
+    return (byte) (reason.ordinal() + 1);
+  }
+
+  private static int lastLineEnd(ByteBuffer buffer)
+  {
+    for (int i = buffer.limit() - 1; i >= 0; i--)
+      if (buffer.get(i) == '\n')
+        return i + 1;
+    return 0;
+  }
+
+  private static int indexOf(ByteBuffer buffer, int from, int to, char separator)
+  {
+    while (from < to && buffer.get(from) != separator)
+      from++;
+    return from;
+  }
+
+  private static String region(ByteBuffer buffer, int from, int to, byte[] scratch)
+  {
+    if (to - from == 2)
+    {
+      int first = buffer.get(from) - 'A';
+      int second = buffer.get(from + 1) - 'A';
+      if (first >= 0 && first < 26 && second >= 0 && second < 26)
+        return REGIONS[first * 26 + second];
+    }
+    return ascii(buffer, from, to, scratch);
+  }
+
+  private static String ascii(ByteBuffer buffer, int from, int to, byte[] scratch)
+  {
+    int length = to - from;
+    byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+    buffer.get(from, bytes, 0, length);
+    return new String(bytes, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private static void write(FileChannel out, byte[] codes, long[] counts) throws IOException
+  {
+    for (byte code : codes)
+      counts[code]++;
+    ByteBuffer buffer = ByteBuffer.wrap(codes);
+    while (buffer.hasRemaining())
+      out.write(buffer);
+  }
+
+  private static byte[] await(Future<byte[]> chunk) throws IOException
+  {
+    try
+    {
+      return chunk.get();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("### Interrupted while importing recipients");
+    }
+    catch (ExecutionException e)
+    {
+      if (e.getCause() instanceof RuntimeException runtime)
+        throw runtime;
+      if (e.getCause() instanceof Error error)
+        throw error;
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static ImportSummary summary(long[] counts)
+  {
+    long lines = 0;
+    Map<FailureReason, Long> rejected = new EnumMap<>(FailureReason.class);
+    for (int code = 0; code < counts.length; code++)
+    {
+      lines += counts[code];
+      if (code != ACCEPTED && counts[code] > 0)
+        rejected.put(REASONS[code - 1], counts[code]);
+    }
+    return new ImportSummary(lines, counts[ACCEPTED], Collections.unmodifiableMap(rejected));
+  }
+}
@@ -0,0 +1,10 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+public record CacheStats(long hits, long misses, long evictions)
+{
+  public double hitRate()
+  {
+    long requests = hits + misses;
+    return requests == 0 ? 0.0 : (double) hits / requests;
+  }
+}
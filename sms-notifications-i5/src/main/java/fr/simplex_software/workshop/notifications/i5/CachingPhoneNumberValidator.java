@@ -0,0 +1,198 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+public class CachingPhoneNumberValidator<R> implements BiFunction<String, String, R>
+{
+  private static final int MAX_SEGMENTS = 64;
+  private static final int MIN_ENTRIES_PER_SEGMENT = 16;
+  private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+  private final BiFunction<String, String, R> delegate;
+  private final Segment<R>[] segments;
+  private final long ttlNanos;
+  private final LongSupplier ticker;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public CachingPhoneNumberValidator(BiFunction<String, String, R> delegate, int maximumSize)
+  {
+    this(delegate, maximumSize, null, System::nanoTime);
+  }
+
+  public CachingPhoneNumberValidator(BiFunction<String, String, R> delegate, int maximumSize, Duration ttl)
+  {
+    this(delegate, maximumSize, Objects.requireNonNull(ttl), System::nanoTime);
+  }
+
+  @SuppressWarnings("unchecked")
+  public CachingPhoneNumberValidator(BiFunction<String, String, R> delegate, int maximumSize, Duration ttl,
+    LongSupplier ticker)
+  {
+    if (maximumSize <= 0)
+      throw new IllegalArgumentException("### The maximum size must be positive: %d".formatted(maximumSize));
+    if (ttl != null && (ttl.isNegative() || ttl.isZero()))
+      throw new IllegalArgumentException("### The time to live must be positive: %s".formatted(ttl));
+    this.delegate = Objects.requireNonNull(delegate);
+    this.ticker = Objects.requireNonNull(ticker);
+    this.ttlNanos = ttl == null ? NO_EXPIRY : ttl.toNanos();
+    int segmentCount = segmentCount(maximumSize);
+    int segmentSize = (maximumSize + segmentCount - 1) / segmentCount;
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++)
+      segments[i] = new Segment<>(segmentSize);
+  }
+
+  @Override
+  public R apply(String number, String region)
+  {
+    Recipient key = new Recipient(number, region);
+    Segment<R> segment = segmentFor(key);
+    long now = ticker.getAsLong();
+    R cached = segment.get(key, now, evictions);
+    if (cached != null)
+    {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    R value = delegate.apply(number, region);
+    if (value != null)
+      segment.put(key, value, ttlNanos == NO_EXPIRY ? NO_EXPIRY : now + ttlNanos, evictions);
+    return value;
+  }
+
+  public CacheStats stats()
+  {
+    return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+  }
+
+  public long size()
+  {
+    long size = 0;
+    for (Segment<R> segment : segments)
+      size += segment.size();
+    return size;
+  }
+
+  public void invalidateAll()
+  {
+    for (Segment<R> segment : segments)
+      segment.clear();
+  }
+
+  private Segment<R> segmentFor(Recipient key)
+  {
+    int h = key.hashCode();
+    h ^= h >>> 16;
+    return segments[h & (segments.length - 1)];
+  }
+
+  private static int segmentCount(int maximumSize)
+  {
+    int segments = 1;
+    while (segments < MAX_SEGMENTS && segments * 2L * MIN_ENTRIES_PER_SEGMENT <= maximumSize)
+      segments <<= 1;
+    return segments;
+  }
+
+  private record Entry<R>(R value, long expiresAt)
+  {
+    boolean isExpired(long now)
+    {
+      return expiresAt != NO_EXPIRY && now - expiresAt >= 0;
+    }
+  }
+
+  private static final class Segment<R>
+  {
+    private final int capacity;
+    private final int protectedCapacity;
+    private final LinkedHashMap<Recipient, Entry<R>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Recipient, Entry<R>> protectedArea = new LinkedHashMap<>(16, 0.75f, true);
+
+    private Segment(int capacity)
+    {
+      this.capacity = capacity;
+      protectedCapacity = capacity * 4 / 5;
+    }
+
+    private synchronized R get(Recipient key, long now, LongAdder evictions)
+    {
+      Entry<R> entry = protectedArea.get(key);
+      if (entry != null)
+      {
+        if (!entry.isExpired(now))
+          return entry.value();
+        protectedArea.remove(key);
+        evictions.increment();
+        return null;
+      }
+      entry = probation.remove(key);
+      if (entry == null)
+        return null;
+      if (entry.isExpired(now))
+      {
+        evictions.increment();
+        return null;
+      }
+      promote(key, entry);
+      return entry.value();
+    }
+
+    private synchronized void put(Recipient key, R value, long expiresAt, LongAdder evictions)
+    {
+      Entry<R> entry = new Entry<>(value, expiresAt);
+      if (protectedArea.containsKey(key))
+      {
+        protectedArea.put(key, entry);
+        return;
+      }
+      probation.put(key, entry);
+      evictFromProbation(evictions);
+    }
+
+    private void promote(Recipient key, Entry<R> entry)
+    {
+      if (protectedCapacity == 0)
+      {
+        probation.put(key, entry);
+        return;
+      }
+      protectedArea.put(key, entry);
+      if (protectedArea.size() > protectedCapacity)
+      {
+        Iterator<Map.Entry<Recipient, Entry<R>>> eldest = protectedArea.entrySet().iterator();
+        Map.Entry<Recipient, Entry<R>> demoted = eldest.next();
+        eldest.remove();
+        probation.put(demoted.getKey(), demoted.getValue());
+      }
+    }
+
+    private void evictFromProbation(LongAdder evictions)
+    {
+      Iterator<Map.Entry<Recipient, Entry<R>>> eldest = probation.entrySet().iterator();
+      while (probation.size() + protectedArea.size() > capacity && eldest.hasNext())
+      {
+        eldest.next();
+        eldest.remove();
+        evictions.increment();
+      }
+    }
+
+    private synchronized int size()
+    {
+      return probation.size() + protectedArea.size();
+    }
+
+    private synchronized void clear()
+    {
+      probation.clear();
+      protectedArea.clear();
+    }
+  }
+}
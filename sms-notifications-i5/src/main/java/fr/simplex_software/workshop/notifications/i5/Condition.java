@@ -2,14 +2,14 @@ package fr.simplex_software.workshop.notifications.i5;
 
 import java.util.function.*;
 
-public class Condition<T> extends Tuple<Supplier<Boolean>, Supplier<Result<T>>>
+public class Condition<T> extends Tuple<BooleanSupplier, Supplier<Result<T>>>
 {
-  public Condition(Supplier<Boolean> condition, Supplier<Result<T>> result)
+  public Condition(BooleanSupplier condition, Supplier<Result<T>> result)
   {
     super(condition, result);
   }
 
-  public static <T> Condition<T> when(Supplier<Boolean> condition, Supplier<Result<T>> value)
+  public static <T> Condition<T> when(BooleanSupplier condition, Supplier<Result<T>> value)
   {
     return new Condition<>(condition, value);
   }
@@ -23,7 +23,7 @@ public class Condition<T> extends Tuple<Supplier<Boolean>, Supplier<Result<T>>>
   public static <T> Result<T> select(DefaultCondition<T> defaultCondition, Condition<T>... matchers)
   {
     for (Condition<T> aCondition : matchers)
-      if (aCondition.getFirst().get()) return aCondition.getSecond().get();
+      if (aCondition.getFirst().getAsBoolean()) return aCondition.getSecond().get();
     return defaultCondition.getSecond().get();
   }
 }
@@ -0,0 +1,7 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+@FunctionalInterface
+public interface DeadLetterSink
+{
+  void accept(SmsMessage message, int attempts, String lastError);
+}
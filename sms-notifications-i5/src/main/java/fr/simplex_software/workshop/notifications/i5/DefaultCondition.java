@@ -4,7 +4,7 @@ import java.util.function.*;
 
 public class DefaultCondition<T> extends Condition<T>
 {
-  public DefaultCondition(Supplier<Boolean> condition, Supplier<Result<T>> result)
+  public DefaultCondition(BooleanSupplier condition, Supplier<Result<T>> result)
   {
     super(condition, result);
   }
@@ -0,0 +1,7 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+@FunctionalInterface
+public interface DispatchHandler
+{
+  void handle(String phoneNumber, String region, String message);
+}
@@ -0,0 +1,33 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import com.google.i18n.phonenumbers.*;
+
+import java.util.*;
+
+public record E164Number(long value, String region)
+{
+  public E164Number
+  {
+    if (value <= 0)
+      throw new IllegalArgumentException("### Not an E.164 number: %d".formatted(value));
+    Objects.requireNonNull(region);
+  }
+
+  public static E164Number of(Phonenumber.PhoneNumber phoneNumber, String region)
+  {
+    long value = phoneNumber.getCountryCode();
+    if (phoneNumber.isItalianLeadingZero())
+      for (int i = phoneNumber.getNumberOfLeadingZeros(); i > 0; i--)
+        value *= 10;
+    long nationalNumber = phoneNumber.getNationalNumber();
+    for (long digits = nationalNumber; digits > 0; digits /= 10)
+      value *= 10;
+    return new E164Number(value + nationalNumber, region);
+  }
+
+  @Override
+  public String toString()
+  {
+    return "+" + value;
+  }
+}
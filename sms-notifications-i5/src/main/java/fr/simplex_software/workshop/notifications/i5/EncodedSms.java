@@ -0,0 +1,7 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.nio.*;
+
+public record EncodedSms(SmsEncoding encoding, int segments, ByteBuffer userData)
+{
+}
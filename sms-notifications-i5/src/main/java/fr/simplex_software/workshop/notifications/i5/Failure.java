@@ -4,16 +4,88 @@ import java.util.function.*;
 
 public class Failure<T> implements Result<T>
 {
-  private final String message;
+  private final FailureReason reason;
+  private final MessageTemplate template;
+  private final Object[] values;
+  private String message;
 
   public Failure (String message)
   {
+    this(FailureReason.UNSPECIFIED, message);
+  }
+
+  public Failure(FailureReason reason, String message)
+  {
+    this.reason = reason;
+    this.template = null;
+    this.values = null;
     this.message = message;
   }
 
+  public Failure(FailureReason reason, MessageTemplate template, Object... values)
+  {
+    if (values.length != template.names().size())
+      throw new IllegalArgumentException("### The template %s expects %d values but got %d"
+        .formatted(template, template.names().size(), values.length));
+    this.reason = reason;
+    this.template = template;
+    this.values = values;
+  }
+
+  public FailureReason reason()
+  {
+    return reason;
+  }
+
+  public String getMessage()
+  {
+    String rendered = message;
+    if (rendered == null && template != null)
+      message = rendered = template.render(values);
+    return rendered;
+  }
+
   @Override
   public void ifSuccess(Consumer<T> success, Consumer<String> failure)
   {
-    failure.accept(message);
+    failure.accept(getMessage());
+  }
+
+  @Override
+  public boolean isSuccess()
+  {
+    return false;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <U> Result<U> map(Function<? super T, ? extends U> mapper)
+  {
+    return (Result<U>) this;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <U> Result<U> flatMap(Function<? super T, ? extends Result<U>> mapper)
+  {
+    return (Result<U>) this;
+  }
+
+  @Override
+  public <U> U fold(Function<? super T, ? extends U> success, Function<String, ? extends U> failure)
+  {
+    return failure.apply(getMessage());
+  }
+
+  @Override
+  public Result<T> recover(Function<String, ? extends T> recovery)
+  {
+    return new Success<>(recovery.apply(getMessage()));
+  }
+
+  @Override
+  public T orElse(T other)
+  {
+    return other;
   }
 }
@@ -0,0 +1,20 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+public enum FailureReason
+{
+  UNSPECIFIED,
+  NULL_NUMBER,
+  EMPTY_NUMBER,
+  UNPARSEABLE_NUMBER,
+  WRONG_REGION,
+  OPTED_OUT,
+  DUPLICATE,
+  RATE_LIMITED,
+  TRANSIENT,
+  GATEWAY_ERROR,
+  GATEWAY_CLOSED,
+  QUEUE_REJECTED,
+  MESSAGE_TOO_LONG,
+  INTERRUPTED,
+  GAVE_UP
+}
@@ -0,0 +1,51 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.time.*;
+import java.util.concurrent.atomic.*;
+
+public class FakeSmsGateway implements SmsGateway
+{
+  private static final MessageTemplate INTERRUPTED =
+    MessageTemplate.compile("### Interrupted while sending SMS to {number}");
+
+  private final Duration latency;
+  private final LongAdder sent = new LongAdder();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+
+  public FakeSmsGateway(Duration latency)
+  {
+    this.latency = latency;
+  }
+
+  @Override
+  public Result<String> send(E164Number phoneNumber, String message)
+  {
+    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    try
+    {
+      Thread.sleep(latency);
+      sent.increment();
+      return new Success<>(phoneNumber.toString());
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      return new Failure<>(FailureReason.INTERRUPTED, INTERRUPTED, phoneNumber);
+    }
+    finally
+    {
+      inFlight.decrementAndGet();
+    }
+  }
+
+  public long sent()
+  {
+    return sent.sum();
+  }
+
+  public int maxInFlight()
+  {
+    return maxInFlight.get();
+  }
+}
@@ -0,0 +1,9 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+public record IdempotencyStats(long checked, long duplicates, int trackedKeys)
+{
+  public double duplicateRate()
+  {
+    return checked == 0 ? 0.0 : (double) duplicates / checked;
+  }
+}
@@ -0,0 +1,80 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+// Put it last in a SendGuard chain: a key is reserved only once every earlier guard has accepted the send, and
+// released again if the delivery fails, so a retried send is not suppressed as a duplicate of one that never went out.
+public final class IdempotencyWindow implements SendGuard
+{
+  private static final long RESERVED = 0L;
+  private static final long DUPLICATE_KEY = 1L;
+  private static final long PHI = 0x9E3779B97F4A7C15L;
+  private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+  private static final long FNV_PRIME = 0x100000001B3L;
+  private static final MessageTemplate DUPLICATE = MessageTemplate.compile("### Duplicate SMS to {number} suppressed");
+
+  private final long windowNanos;
+  private final LongSupplier ticker;
+  private final StripedLongTable keys = new StripedLongTable(1);
+  private final StripedLongTable.Operation reserve = this::reserve;
+  private final StripedLongTable.Operation forget = (values, offset, present, now) -> values[offset] = now;
+  private final LongAdder checked = new LongAdder();
+  private final LongAdder duplicates = new LongAdder();
+
+  public IdempotencyWindow(Duration window)
+  {
+    this(window, System::nanoTime);
+  }
+
+  public IdempotencyWindow(Duration window, LongSupplier ticker)
+  {
+    if (window.isNegative() || window.isZero())
+      throw new IllegalArgumentException("### The idempotency window must be positive: %s".formatted(window));
+    this.windowNanos = window.toNanos();
+    this.ticker = Objects.requireNonNull(ticker);
+  }
+
+  @Override
+  public Result<E164Number> check(E164Number phoneNumber, String message)
+  {
+    checked.increment();
+    if (keys.compute(key(phoneNumber, message), ticker.getAsLong(), reserve) == RESERVED)
+      return new Success<>(phoneNumber);
+    duplicates.increment();
+    return new Failure<>(FailureReason.DUPLICATE, DUPLICATE, phoneNumber);
+  }
+
+  @Override
+  public void release(E164Number phoneNumber, String message)
+  {
+    keys.computeIfPresent(key(phoneNumber, message), ticker.getAsLong(), forget);
+  }
+
+  public IdempotencyStats stats()
+  {
+    return new IdempotencyStats(checked.sum(), duplicates.sum(), keys.size());
+  }
+
+  private long reserve(long[] values, int offset, boolean present, long now)
+  {
+    if (present && values[offset] - now > 0)
+      return DUPLICATE_KEY;
+    values[offset] = now + windowNanos;
+    return RESERVED;
+  }
+
+  private static long key(E164Number phoneNumber, String message)
+  {
+    long hash = FNV_OFFSET;
+    for (int i = 0; i < message.length(); i++)
+      hash = (hash ^ message.charAt(i)) * FNV_PRIME;
+    hash ^= phoneNumber.value() * PHI;
+    hash = (hash ^ hash >>> 33) * 0xFF51AFD7ED558CCDL;
+    hash = (hash ^ hash >>> 33) * 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash == 0 ? 1 : hash;
+  }
+}
@@ -0,0 +1,11 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.*;
+
+public record ImportSummary(long lines, long accepted, Map<FailureReason, Long> rejected)
+{
+  public long rejectedCount()
+  {
+    return lines - accepted;
+  }
+}
@@ -0,0 +1,44 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.concurrent.atomic.*;
+
+public final class LatencyHistogram
+{
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long nanos)
+  {
+    long value = Math.max(0, nanos);
+    counts.getAndIncrement(indexOf(value));
+    total.add(value);
+    if (value > max.get())
+      max.accumulateAndGet(value, Math::max);
+  }
+
+  public LatencySnapshot snapshot()
+  {
+    long[] buckets = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++)
+      count += buckets[i] = counts.get(i);
+    return new LatencySnapshot(count, total.sum(), max.get(), buckets);
+  }
+
+  static int indexOf(long value)
+  {
+    int shift = Math.max(0, Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+    return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+  }
+
+  static long upperBound(int index)
+  {
+    int shift = Math.max(0, (index >>> SUB_BUCKET_BITS) - 1);
+    long magnitude = index - ((long) shift << SUB_BUCKET_BITS);
+    return ((magnitude + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,28 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.time.*;
+
+public record LatencySnapshot(long count, long totalNanos, long maxNanos, long[] buckets)
+{
+  public Duration mean()
+  {
+    return Duration.ofNanos(count == 0 ? 0 : totalNanos / count);
+  }
+
+  public Duration max()
+  {
+    return Duration.ofNanos(maxNanos);
+  }
+
+  public Duration percentile(double percentile)
+  {
+    if (percentile < 0 || percentile > 100)
+      throw new IllegalArgumentException("### The percentile must be between 0 and 100: %s".formatted(percentile));
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < buckets.length; i++)
+      if ((seen += buckets[i]) >= rank)
+        return Duration.ofNanos(Math.min(LatencyHistogram.upperBound(i), maxNanos));
+    return max();
+  }
+}
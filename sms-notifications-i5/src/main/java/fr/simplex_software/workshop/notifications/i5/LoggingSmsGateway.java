@@ -0,0 +1,16 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.logging.*;
+
+public class LoggingSmsGateway implements SmsGateway
+{
+  private static final Logger LOG = Logger.getLogger(SmsService.class.getName());
+
+  @Override
+  public Result<String> send(E164Number phoneNumber, String message)
+  {
+    if (LOG.isLoggable(Level.INFO))
+      LOG.info(">>> Sending SMS to " + phoneNumber + ": " + message);
+    return new Success<>(phoneNumber.toString());
+  }
+}
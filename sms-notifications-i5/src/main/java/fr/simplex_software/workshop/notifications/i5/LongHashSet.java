@@ -0,0 +1,137 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.lang.invoke.*;
+
+public final class LongHashSet
+{
+  private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final long FREE = 0L;
+  private static final long REMOVED = -1L;
+  private static final long PHI = 0x9E3779B97F4A7C15L;
+  private static final int MIN_CAPACITY = 16;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private volatile long[] table;
+  private int size;
+  private int used;
+
+  public LongHashSet()
+  {
+    this(MIN_CAPACITY / 2);
+  }
+
+  public LongHashSet(int expectedSize)
+  {
+    table = new long[capacityFor(expectedSize)];
+  }
+
+  public boolean contains(long value)
+  {
+    checkValue(value);
+    long[] slots = table;
+    int mask = slots.length - 1;
+    for (int index = hash(value, mask); ; index = (index + 1) & mask)
+    {
+      long slot = (long) SLOT.getAcquire(slots, index);
+      if (slot == value)
+        return true;
+      if (slot == FREE)
+        return false;
+    }
+  }
+
+  public synchronized boolean add(long value)
+  {
+    checkValue(value);
+    long[] slots = table;
+    int mask = slots.length - 1;
+    int removed = -1;
+    int index = hash(value, mask);
+    for (long slot = slots[index]; slot != FREE; slot = slots[index = (index + 1) & mask])
+    {
+      if (slot == value)
+        return false;
+      if (slot == REMOVED && removed < 0)
+        removed = index;
+    }
+    if (removed >= 0)
+      SLOT.setRelease(slots, removed, value);
+    else
+    {
+      SLOT.setRelease(slots, index, value);
+      used++;
+    }
+    size++;
+    if (used > maxUsed(slots.length))
+      rehash(capacityFor(size));
+    return true;
+  }
+
+  public synchronized boolean remove(long value)
+  {
+    checkValue(value);
+    long[] slots = table;
+    int mask = slots.length - 1;
+    for (int index = hash(value, mask); slots[index] != FREE; index = (index + 1) & mask)
+      if (slots[index] == value)
+      {
+        SLOT.setRelease(slots, index, REMOVED);
+        size--;
+        return true;
+      }
+    return false;
+  }
+
+  public synchronized int size()
+  {
+    return size;
+  }
+
+  public int capacity()
+  {
+    return table.length;
+  }
+
+  private void rehash(int capacity)
+  {
+    long[] slots = new long[capacity];
+    int mask = capacity - 1;
+    for (long value : table)
+      if (value != FREE && value != REMOVED)
+      {
+        int index = hash(value, mask);
+        while (slots[index] != FREE)
+          index = (index + 1) & mask;
+        slots[index] = value;
+      }
+    used = size;
+    table = slots;
+  }
+
+  private static int hash(long value, int mask)
+  {
+    long mixed = value * PHI;
+    return (int) (mixed ^ mixed >>> 32) & mask;
+  }
+
+  private static int maxUsed(int capacity)
+  {
+    return capacity - (capacity >>> 2);
+  }
+
+  private static int capacityFor(int expectedSize)
+  {
+    long capacity = MIN_CAPACITY;
+    while (capacity < MAX_CAPACITY && maxUsed((int) capacity) < expectedSize)
+      capacity <<= 1;
+    if (maxUsed((int) capacity) < expectedSize)
+      throw new IllegalStateException("### Too many entries: %d".formatted(expectedSize));
+    return (int) capacity;
+  }
+
+  private static void checkValue(long value)
+  {
+    if (value <= 0)
+      throw new IllegalArgumentException("### Only positive values can be stored: %d".formatted(value));
+  }
+}
@@ -0,0 +1,82 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.*;
+
+public final class MessageTemplate
+{
+  private final String template;
+  private final String[] literals;
+  private final int[] slots;
+  private final List<String> names;
+  private final int literalLength;
+
+  private MessageTemplate(String template, List<String> literals, List<Integer> slots, List<String> names)
+  {
+    this.template = template;
+    this.literals = literals.toArray(String[]::new);
+    this.slots = slots.stream().mapToInt(Integer::intValue).toArray();
+    this.names = List.copyOf(names);
+    this.literalLength = literals.stream().mapToInt(String::length).sum();
+  }
+
+  public static MessageTemplate compile(String template)
+  {
+    List<String> literals = new ArrayList<>();
+    List<Integer> slots = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+    StringBuilder literal = new StringBuilder();
+    for (int i = 0; i < template.length(); i++)
+    {
+      char c = template.charAt(i);
+      if ((c == '{' || c == '}') && i + 1 < template.length() && template.charAt(i + 1) == c)
+        literal.append(template.charAt(i++));
+      else if (c == '{')
+      {
+        int end = template.indexOf('}', i);
+        if (end < 0)
+          throw new IllegalArgumentException("### Unclosed placeholder at %d in template %s".formatted(i, template));
+        String name = template.substring(i + 1, end).strip();
+        if (name.isEmpty() || name.indexOf('{') >= 0)
+          throw new IllegalArgumentException("### Invalid placeholder at %d in template %s".formatted(i, template));
+        if (!names.contains(name))
+          names.add(name);
+        literals.add(literal.toString());
+        slots.add(names.indexOf(name));
+        literal.setLength(0);
+        i = end;
+      }
+      else if (c == '}')
+        throw new IllegalArgumentException("### Unmatched } at %d in template %s".formatted(i, template));
+      else
+        literal.append(c);
+    }
+    literals.add(literal.toString());
+    return new MessageTemplate(template, literals, slots, names);
+  }
+
+  public List<String> names()
+  {
+    return names;
+  }
+
+  public String render(Object... values)
+  {
+    return renderTo(new StringBuilder(literalLength + slots.length * 16), values).toString();
+  }
+
+  public StringBuilder renderTo(StringBuilder out, Object... values)
+  {
+    if (values.length != names.size())
+      throw new IllegalArgumentException("### The template %s expects %d values but got %d"
+        .formatted(template, names.size(), values.length));
+    for (int i = 0; i < slots.length; i++)
+      out.append(literals[i]).append(values[slots[i]]);
+    return out.append(literals[slots.length]);
+  }
+
+  @Override
+  public String toString()
+  {
+    return template;
+  }
+}
@@ -2,52 +2,186 @@ package fr.simplex_software.workshop.notifications.i5;
 
 import com.google.i18n.phonenumbers.*;
 
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 import java.util.logging.*;
+import java.util.stream.*;
 
-import static fr.simplex_software.workshop.notifications.i5.Condition.*;
+import static fr.simplex_software.workshop.notifications.i5.BiCondition.*;
 
 public class Notification
 {
   private static final Logger LOG = Logger.getLogger(Notification.class.getName());
   private static final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+  private static final PhoneNumberParser parser = PhoneNumberParser.getInstance();
+  private static final int SEQUENTIAL_THRESHOLD = 4_096;
+  private static final int DISPATCH_BATCH_SIZE = 64;
+  private static final Result<E164Number> NULL_NUMBER = new Failure<>(FailureReason.NULL_NUMBER,
+    "### The phone number cannot be null.");
+  private static final Result<E164Number> EMPTY_NUMBER = new Failure<>(FailureReason.EMPTY_NUMBER,
+    "### The phone number cannot not be empty.");
 
-  private Consumer<String> success = to -> sendSms(to, ">>> SMS sent to %s".formatted(to));
-  private Consumer<String> failure = msg -> logError(msg);
+  private final SmsService smsService;
+  private final SendGuard guard;
+  private final NotificationMetrics metrics;
+  private volatile RingBufferDispatcher dispatcher;
 
-  public BiFunction<String, String, Result<String>> phoneNumberValidator = (number, region) ->
+  public BiFunction<String, String, Result<E164Number>> phoneNumberValidator = compile(
+    when((number, region) -> parser.parse(number, region).flatMap(phoneNumber -> e164(phoneNumber, number, region))),
+    when((number, region) -> number == null, (number, region) -> NULL_NUMBER),
+    when((number, region) -> number.length() == 0, (number, region) -> EMPTY_NUMBER));
+
+  public Notification()
+  {
+    this(new SmsService());
+  }
+
+  public Notification(SmsService smsService)
+  {
+    this(smsService, SendGuard.none());
+  }
+
+  public Notification(SmsService smsService, SendGuard guard)
+  {
+    this.smsService = Objects.requireNonNull(smsService);
+    this.guard = Objects.requireNonNull(guard);
+    this.metrics = smsService.metrics();
+  }
+
+  public static WarmupReport warmUp(Collection<String> regions)
   {
-    return select(
-      when(() -> new Success<>(number)),
-      when(() -> number == null, () -> new Failure<>("### The phone number cannot be null.")),
-      when(() -> number.length() == 0, () -> new Failure<>("### The phone number cannot not be empty.")),
-      when(() ->
+    long start = System.nanoTime();
+    Map<String, Duration> loaded = new ConcurrentSkipListMap<>();
+    Set<String> unsupported = new ConcurrentSkipListSet<>();
+    regions.parallelStream().distinct().forEach(region ->
+    {
+      long regionStart = System.nanoTime();
+      Phonenumber.PhoneNumber example = phoneNumberUtil.getExampleNumber(region);
+      if (example == null)
+        unsupported.add(region);
+      else
       {
-        try
-        {
-          return !phoneNumberUtil.isValidNumber(phoneNumberUtil.parse(number, region));
-        }
-        catch (NumberParseException e)
-        {
-          return false;
-        }
-      }, () -> new Failure<>("### The phone number %s is not for region %s".formatted(number, region))
-    ));
-  };
+        phoneNumberUtil.isValidNumber(example);
+        parser.parse(phoneNumberUtil.format(example, PhoneNumberUtil.PhoneNumberFormat.E164), region);
+        loaded.put(region, Duration.ofNanos(System.nanoTime() - regionStart));
+      }
+    });
+    WarmupReport report = new WarmupReport(Duration.ofNanos(System.nanoTime() - start), Map.copyOf(loaded),
+      Set.copyOf(unsupported));
+    if (LOG.isLoggable(Level.INFO))
+      LOG.info(">>> Phone number metadata warmed up: " + report);
+    return report;
+  }
+
+  public List<Result<E164Number>> validateAll(List<Recipient> recipients)
+  {
+    return new BatchValidation<>(phoneNumberValidator, SEQUENTIAL_THRESHOLD).validate(recipients);
+  }
+
+  public List<Result<E164Number>> validateAll(Stream<Recipient> recipients)
+  {
+    return validateAll(recipients.toList());
+  }
+
+  public synchronized RingBufferDispatcher startDispatcher(int ringSize, int consumers, WaitStrategy waitStrategy)
+  {
+    RingBufferDispatcher started = new RingBufferDispatcher(ringSize, consumers, DISPATCH_BATCH_SIZE, waitStrategy,
+      this::deliver);
+    RingBufferDispatcher previous = dispatcher;
+    dispatcher = started;
+    if (previous != null)
+      previous.close();
+    return started;
+  }
 
   public void sendNotification(String phoneNumber, String region, String message)
   {
-    phoneNumberValidator.apply(phoneNumber, region).ifSuccess(success, failure);
+    RingBufferDispatcher current = dispatcher;
+    if (current == null || !current.publish(phoneNumber, region, message))
+      deliver(phoneNumber, region, message);
+  }
+
+  public CompletableFuture<Result<String>> sendNotificationAsync(String phoneNumber, String region, String message)
+  {
+    Result<E164Number> validation = check(phoneNumber, region, message);
+    if (validation.isSuccess())
+      return send(validation.orElse(null), message);
+    if (validation instanceof Failure<E164Number> rejected && LOG.isLoggable(Level.INFO))
+      logError(rejected.getMessage());
+    return CompletableFuture.completedFuture(validation.map(E164Number::toString));
   }
 
+  public CompletableFuture<Result<String>> sendNotificationAsync(String phoneNumber, String region,
+    MessageTemplate template, Object... values)
+  {
+    return sendNotificationAsync(phoneNumber, region, template.render(values));
+  }
+
+  public BulkImporter bulkImporter(int workers)
+  {
+    return new BulkImporter(phoneNumberValidator, workers);
+  }
+
+  public NotificationPipeline pipeline(int validationParallelism, int bufferSize)
+  {
+    return new NotificationPipeline(this, validationParallelism, bufferSize);
+  }
+
+  private void deliver(String phoneNumber, String region, String message)
+  {
+    Result<E164Number> result = check(phoneNumber, region, message);
+    if (result.isSuccess())
+      sendSms(result.orElse(null), message);
+    else if (result instanceof Failure<E164Number> rejected && LOG.isLoggable(Level.INFO))
+      logError(rejected.getMessage());
+  }
+
+  Result<E164Number> check(String phoneNumber, String region, String message)
+  {
+    long start = metrics.start();
+    Result<E164Number> validation = phoneNumberValidator.apply(phoneNumber, region);
+    long validated = metrics.record(PipelineStage.VALIDATION, start, validation);
+    if (!validation.isSuccess())
+      return validation;
+    Result<E164Number> guarded = validation.flatMap(to -> guard.check(to, message));
+    metrics.record(PipelineStage.GUARD, validated, guarded);
+    return guarded;
+  }
+
+  private static Result<E164Number> e164(Phonenumber.PhoneNumber phoneNumber, String number, String region)
+  {
+    String numberRegion = phoneNumberUtil.getRegionCodeForNumber(phoneNumber);
+    return numberRegion != null && phoneNumberUtil.isValidNumberForRegion(phoneNumber, numberRegion)
+      ? new Success<>(E164Number.of(phoneNumber, numberRegion))
+      : new Failure<>(FailureReason.WRONG_REGION, PhoneNumberParser.WRONG_REGION, number, region);
+  }
 
   private void logError(String message)
   {
-    LOG.info("### Error: %s".formatted(message));
+    if (LOG.isLoggable(Level.INFO))
+      LOG.info("### Error: " + message);
+  }
+
+  CompletableFuture<Result<String>> send(E164Number phoneNumber, String message)
+  {
+    return releaseOnFailure(phoneNumber, message, smsService.sendAsync(phoneNumber, message));
+  }
+
+  private void sendSms(E164Number phoneNumber, String message)
+  {
+    releaseOnFailure(phoneNumber, message, smsService.send(phoneNumber, message));
   }
 
-  private void sendSms(String phoneNumber, String message)
+  private CompletableFuture<Result<String>> releaseOnFailure(E164Number phoneNumber, String message,
+    CompletableFuture<Result<String>> delivery)
   {
-    new SmsService().send(phoneNumber, message);
+    return delivery.thenApply(result ->
+    {
+      if (!result.isSuccess())
+        guard.release(phoneNumber, message);
+      return result;
+    });
   }
 }
@@ -0,0 +1,94 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public final class NotificationMetrics
+{
+  private static final PipelineStage[] STAGES = PipelineStage.values();
+  private static final FailureReason[] REASONS = FailureReason.values();
+  private static final int DEFAULT_SAMPLING = 16;
+  private static final long NOT_SAMPLED = Long.MIN_VALUE;
+  private static final NotificationMetrics DISABLED = new NotificationMetrics(false, 1);
+
+  private final boolean enabled;
+  private final int samplingMask;
+  private final LatencyHistogram[] latencies = new LatencyHistogram[STAGES.length];
+  private final LongAdder[] successes = new LongAdder[STAGES.length];
+  private final LongAdder[][] failures = new LongAdder[STAGES.length][REASONS.length];
+
+  public NotificationMetrics()
+  {
+    this(DEFAULT_SAMPLING);
+  }
+
+  public NotificationMetrics(int latencySampling)
+  {
+    this(true, latencySampling);
+  }
+
+  private NotificationMetrics(boolean enabled, int latencySampling)
+  {
+    if (latencySampling <= 0 || Integer.bitCount(latencySampling) != 1)
+      throw new IllegalArgumentException("### The latency sampling must be a power of two: %d"
+        .formatted(latencySampling));
+    this.enabled = enabled;
+    this.samplingMask = latencySampling - 1;
+    for (int stage = 0; stage < STAGES.length; stage++)
+    {
+      latencies[stage] = new LatencyHistogram();
+      successes[stage] = new LongAdder();
+      for (int reason = 0; reason < REASONS.length; reason++)
+        failures[stage][reason] = new LongAdder();
+    }
+  }
+
+  public static NotificationMetrics disabled()
+  {
+    return DISABLED;
+  }
+
+  public long start()
+  {
+    if (!enabled || (samplingMask != 0 && (ThreadLocalRandom.current().nextInt() & samplingMask) != 0))
+      return NOT_SAMPLED;
+    return System.nanoTime();
+  }
+
+  public long record(PipelineStage stage, long startNanos, Result<?> result)
+  {
+    if (!enabled)
+      return NOT_SAMPLED;
+    if (result instanceof Failure<?> failure)
+      failures[stage.ordinal()][failure.reason().ordinal()].increment();
+    else
+      successes[stage.ordinal()].increment();
+    if (startNanos == NOT_SAMPLED)
+      return NOT_SAMPLED;
+    long now = System.nanoTime();
+    latencies[stage.ordinal()].record(now - startNanos);
+    return now;
+  }
+
+  public StageMetrics snapshot(PipelineStage stage)
+  {
+    Map<FailureReason, Long> reasons = new EnumMap<>(FailureReason.class);
+    for (FailureReason reason : REASONS)
+    {
+      long count = failures[stage.ordinal()][reason.ordinal()].sum();
+      if (count > 0)
+        reasons.put(reason, count);
+    }
+    return new StageMetrics(successes[stage.ordinal()].sum(), Collections.unmodifiableMap(reasons),
+      latencies[stage.ordinal()].snapshot());
+  }
+
+  public Map<PipelineStage, StageMetrics> snapshot()
+  {
+    Map<PipelineStage, StageMetrics> stages = new EnumMap<>(PipelineStage.class);
+    for (PipelineStage stage : STAGES)
+      stages.put(stage, snapshot(stage));
+    return Collections.unmodifiableMap(stages);
+  }
+}
@@ -0,0 +1,175 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+public final class NotificationPipeline implements Flow.Subscriber<SendRequest>
+{
+  private static final MessageTemplate TOO_LONG =
+    MessageTemplate.compile("### The message to {number} cannot be encoded");
+  private static final MessageTemplate UNPROCESSED =
+    MessageTemplate.compile("### Cannot process the SMS request: {error}");
+
+  private final Notification notification;
+  private final int bufferSize;
+  private final int requestBatch;
+  private final ThreadPoolExecutor validators;
+  private final SubmissionPublisher<Result<String>> failures;
+  private final AtomicLong inFlight = new AtomicLong();
+  private final LongAdder droppedFailures = new LongAdder();
+  private final BiPredicate<Flow.Subscriber<? super Result<String>>, Result<String>> dropFailure =
+    (subscriber, failure) ->
+    {
+      droppedFailures.increment();
+      return false;
+    };
+  private final AtomicInteger credits = new AtomicInteger();
+  private final AtomicBoolean finished = new AtomicBoolean();
+  private final CompletableFuture<Void> completion = new CompletableFuture<>();
+  private volatile Flow.Subscription subscription;
+  private volatile boolean upstreamDone;
+  private volatile Throwable upstreamError;
+
+  NotificationPipeline(Notification notification, int validationParallelism, int bufferSize)
+  {
+    if (validationParallelism <= 0)
+      throw new IllegalArgumentException("### The validation parallelism must be positive: %d"
+        .formatted(validationParallelism));
+    if (bufferSize <= 0)
+      throw new IllegalArgumentException("### The buffer size must be positive: %d".formatted(bufferSize));
+    this.notification = Objects.requireNonNull(notification);
+    this.bufferSize = bufferSize;
+    this.requestBatch = Math.max(1, bufferSize / 4);
+    this.validators = new ThreadPoolExecutor(validationParallelism, validationParallelism, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(bufferSize), Thread.ofPlatform().name("sms-validation-", 0).daemon().factory());
+    this.failures = new SubmissionPublisher<>(ForkJoinPool.commonPool(), bufferSize);
+  }
+
+  public Flow.Publisher<Result<String>> failures()
+  {
+    return failures;
+  }
+
+  public CompletableFuture<Void> completion()
+  {
+    return completion;
+  }
+
+  public long inFlight()
+  {
+    return inFlight.get();
+  }
+
+  public long droppedFailures()
+  {
+    return droppedFailures.sum();
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription)
+  {
+    if (this.subscription != null)
+    {
+      subscription.cancel();
+      return;
+    }
+    this.subscription = subscription;
+    subscription.request(bufferSize);
+  }
+
+  @Override
+  public void onNext(SendRequest request)
+  {
+    inFlight.incrementAndGet();
+    try
+    {
+      validators.execute(() -> process(request));
+    }
+    catch (RejectedExecutionException e)
+    {
+      done(null, e);
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable)
+  {
+    upstreamError = throwable;
+    upstreamDone = true;
+    finishIfDrained();
+  }
+
+  @Override
+  public void onComplete()
+  {
+    upstreamDone = true;
+    finishIfDrained();
+  }
+
+  private void process(SendRequest request)
+  {
+    CompletableFuture<Result<String>> delivery;
+    try
+    {
+      String number = request.recipient().number();
+      String message = request.message();
+      Result<E164Number> checked = withinSegmentLimit(message)
+        ? notification.check(number, request.recipient().region(), message)
+        : new Failure<>(FailureReason.MESSAGE_TOO_LONG, TOO_LONG, number);
+      delivery = checked.isSuccess() ? notification.send(checked.orElse(null), message)
+        : CompletableFuture.completedFuture(checked.map(E164Number::toString));
+    }
+    catch (RuntimeException e)
+    {
+      delivery = CompletableFuture.failedFuture(e);
+    }
+    delivery.whenComplete(this::done);
+  }
+
+  private static boolean withinSegmentLimit(String message)
+  {
+    return message != null && SmsEncoder.segmentCount(message) <= SmsEncoder.MAX_SEGMENTS;
+  }
+
+  private void done(Result<String> result, Throwable error)
+  {
+    try
+    {
+      Result<String> outcome = error == null ? result
+        : new Failure<>(FailureReason.UNSPECIFIED, UNPROCESSED, error);
+      if (!outcome.isSuccess())
+        failures.offer(outcome, dropFailure);
+    }
+    finally
+    {
+      inFlight.decrementAndGet();
+      if (credits.incrementAndGet() >= requestBatch)
+      {
+        int released = credits.getAndSet(0);
+        if (released > 0 && !upstreamDone)
+          subscription.request(released);
+      }
+      finishIfDrained();
+    }
+  }
+
+  private void finishIfDrained()
+  {
+    if (upstreamDone && inFlight.get() == 0 && finished.compareAndSet(false, true))
+    {
+      validators.shutdown();
+      if (upstreamError == null)
+      {
+        failures.close();
+        completion.complete(null);
+      }
+      else
+      {
+        failures.closeExceptionally(upstreamError);
+        completion.completeExceptionally(upstreamError);
+      }
+    }
+  }
+}
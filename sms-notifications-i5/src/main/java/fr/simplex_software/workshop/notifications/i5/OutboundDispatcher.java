@@ -0,0 +1,87 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+public class OutboundDispatcher implements AutoCloseable
+{
+  private static final Logger LOG = Logger.getLogger(OutboundDispatcher.class.getName());
+  private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+
+  private final OutboundQueue queue;
+  private final SmsService smsService;
+  private final int maxBatchSize;
+  private final DeadLetterSink deadLetters;
+  private final Thread worker;
+  private volatile boolean running = true;
+
+  public OutboundDispatcher(OutboundQueue queue, SmsService smsService, int maxBatchSize, DeadLetterSink deadLetters)
+  {
+    if (maxBatchSize <= 0)
+      throw new IllegalArgumentException("### The maximum batch size must be positive: %d".formatted(maxBatchSize));
+    this.queue = Objects.requireNonNull(queue);
+    this.smsService = Objects.requireNonNull(smsService);
+    this.maxBatchSize = maxBatchSize;
+    this.deadLetters = Objects.requireNonNull(deadLetters);
+    this.worker = Thread.ofPlatform().name("sms-outbound-dispatcher").daemon().start(this::run);
+  }
+
+  @Override
+  public void close()
+  {
+    running = false;
+    try
+    {
+      worker.join();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run()
+  {
+    try
+    {
+      while (running)
+      {
+        List<SmsMessage> batch = queue.poll(maxBatchSize, POLL_TIMEOUT);
+        if (batch.isEmpty())
+          continue;
+        List<CompletableFuture<Result<String>>> deliveries = new ArrayList<>(batch.size());
+        for (SmsMessage message : batch)
+          deliveries.add(smsService.sendAsync(message.phoneNumber(), message.message()));
+        for (int i = 0; i < batch.size(); i++)
+          if (deliveries.get(i).join() instanceof Failure<String> failure)
+            deadLetter(batch.get(i), failure);
+        queue.commit();
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch (IOException e)
+    {
+      LOG.log(Level.SEVERE, "### Cannot commit the outbound queue, dispatching stopped", e);
+    }
+    catch (RuntimeException e)
+    {
+      LOG.log(Level.SEVERE, "### Cannot deliver the outbound batch, dispatching stopped", e);
+    }
+  }
+
+  private void deadLetter(SmsMessage message, Failure<String> failure)
+  {
+    if (LOG.isLoggable(Level.INFO))
+      LOG.info("### Error: " + failure.getMessage());
+    // the batch is committed next, so every failure must end up somewhere; SmsService already hands over the
+    // messages it gave up retrying to its own sink
+    if (failure.reason() != FailureReason.GAVE_UP)
+      deadLetters.accept(message, 1, failure.getMessage());
+  }
+}
@@ -0,0 +1,387 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.concurrent.locks.Condition;
+import java.util.zip.*;
+
+public final class OutboundQueue implements SmsGateway, AutoCloseable
+{
+  private static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+  private static final int HEADER_SIZE = Integer.BYTES * 2;
+  private static final int FIXED_PAYLOAD_SIZE = Long.BYTES + 1;
+  private static final String SEGMENT_SUFFIX = ".segment";
+  private static final String CONSUMER_OFFSET = "consumer.offset";
+  private static final MessageTemplate REJECTED = MessageTemplate.compile("### Cannot queue SMS to {number}: {error}");
+
+  private final Path directory;
+  private final int segmentSize;
+  private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+  private final FileChannel consumerOffset;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition appended = lock.newCondition();
+  private final Condition committed = lock.newCondition();
+  private final ArrayDeque<PendingCommit> pendingCommits = new ArrayDeque<>();
+  private final CRC32C checksum = new CRC32C();
+  private final Thread committer;
+  private Segment active;
+  private int position;
+  private long appendedOffset;
+  private boolean open = true;
+  private volatile long durableOffset;
+  private long readOffset;
+
+  private OutboundQueue(Path directory, int segmentSize) throws IOException
+  {
+    this.directory = Files.createDirectories(directory);
+    this.segmentSize = segmentSize;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX))
+    {
+      for (Path file : files)
+      {
+        Segment segment = Segment.open(file);
+        segments.put(segment.base, segment);
+      }
+    }
+    if (segments.isEmpty())
+      segments.put(0L, Segment.create(directory, 0L, segmentSize));
+    active = segments.lastEntry().getValue();
+    if (active.size < segmentSize)
+    {
+      // a crash right after rollOver() leaves the new tail empty or short: map it again at full size
+      active = new Segment(active.base, active.path, active.channel, segmentSize);
+      segments.put(active.base, active);
+    }
+    position = recover(active);
+    appendedOffset = durableOffset = active.base + position;
+    consumerOffset = FileChannel.open(directory.resolve(CONSUMER_OFFSET), StandardOpenOption.CREATE,
+      StandardOpenOption.READ, StandardOpenOption.WRITE);
+    ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+    long storedOffset = consumerOffset.read(offset, 0) == Long.BYTES ? offset.getLong(0) : 0L;
+    readOffset = Math.min(Math.max(storedOffset, segments.firstKey()), durableOffset);
+    committer = Thread.ofPlatform().name("sms-outbound-committer").daemon().start(this::commitLoop);
+  }
+
+  public static OutboundQueue open(Path directory) throws IOException
+  {
+    return open(directory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  public static OutboundQueue open(Path directory, int segmentSize) throws IOException
+  {
+    if (segmentSize < HEADER_SIZE + FIXED_PAYLOAD_SIZE)
+      throw new IllegalArgumentException("### The segment size is too small: %d".formatted(segmentSize));
+    return new OutboundQueue(directory, segmentSize);
+  }
+
+  @Override
+  public Result<String> send(E164Number phoneNumber, String message)
+  {
+    return awaitCommit(phoneNumber, enqueue(new SmsMessage(phoneNumber, message)));
+  }
+
+  @Override
+  public List<Result<String>> sendBatch(List<SmsMessage> messages)
+  {
+    List<CompletableFuture<Void>> commits = new ArrayList<>(messages.size());
+    for (SmsMessage message : messages)
+      commits.add(enqueue(message));
+    List<Result<String>> results = new ArrayList<>(messages.size());
+    for (int i = 0; i < messages.size(); i++)
+      results.add(awaitCommit(messages.get(i).phoneNumber(), commits.get(i)));
+    return results;
+  }
+
+  public CompletableFuture<Void> enqueue(SmsMessage message)
+  {
+    byte[] region = message.phoneNumber().region().getBytes(StandardCharsets.US_ASCII);
+    byte[] text = message.message().getBytes(StandardCharsets.UTF_8);
+    int length = FIXED_PAYLOAD_SIZE + region.length + text.length;
+    if (HEADER_SIZE + length > segmentSize)
+      return CompletableFuture.failedFuture(new IllegalArgumentException(
+        "### The message to %s is too large: %d bytes".formatted(message.phoneNumber(), text.length)));
+    lock.lock();
+    try
+    {
+      if (!open)
+        return CompletableFuture.failedFuture(new IllegalStateException("### The outbound queue is closed"));
+      if (position + HEADER_SIZE + length > active.size)
+        rollOver();
+      write(message.phoneNumber().value(), region, text, length);
+      CompletableFuture<Void> commit = new CompletableFuture<>();
+      pendingCommits.add(new PendingCommit(appendedOffset, commit));
+      appended.signal();
+      return commit;
+    }
+    catch (IOException e)
+    {
+      return CompletableFuture.failedFuture(new UncheckedIOException(e));
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  public List<SmsMessage> poll(int maxMessages, Duration timeout) throws InterruptedException
+  {
+    if (durableOffset == readOffset)
+    {
+      lock.lock();
+      try
+      {
+        for (long remaining = timeout.toNanos(); durableOffset == readOffset && open && remaining > 0; )
+          remaining = committed.awaitNanos(remaining);
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+    List<SmsMessage> messages = new ArrayList<>(Math.min(maxMessages, 1_024));
+    for (long limit = durableOffset; messages.size() < maxMessages && readOffset < limit; )
+    {
+      Segment segment = segments.floorEntry(readOffset).getValue();
+      int offset = (int) (readOffset - segment.base);
+      int length = offset + HEADER_SIZE <= segment.size ? segment.buffer.getInt(offset) : 0;
+      if (length == 0)
+        readOffset = segments.higherKey(segment.base);
+      else
+      {
+        messages.add(decode(segment.buffer, offset + HEADER_SIZE, length));
+        readOffset += HEADER_SIZE + length;
+      }
+    }
+    return messages;
+  }
+
+  public void commit() throws IOException
+  {
+    long offset = readOffset;
+    consumerOffset.write(ByteBuffer.allocate(Long.BYTES).putLong(0, offset), 0);
+    consumerOffset.force(false);
+    Long current = segments.floorKey(offset);
+    for (Iterator<Segment> consumed = segments.headMap(current).values().iterator(); consumed.hasNext(); )
+    {
+      Segment segment = consumed.next();
+      consumed.remove();
+      segment.delete();
+    }
+  }
+
+  public long durableOffset()
+  {
+    return durableOffset;
+  }
+
+  public int segmentCount()
+  {
+    return segments.size();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    lock.lock();
+    try
+    {
+      open = false;
+      appended.signalAll();
+      committed.signalAll();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+    try
+    {
+      committer.join();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    for (Segment segment : segments.values())
+      segment.channel.close();
+    consumerOffset.close();
+  }
+
+  private void write(long phoneNumber, byte[] region, byte[] text, int length)
+  {
+    MappedByteBuffer buffer = active.buffer;
+    int payload = position + HEADER_SIZE;
+    buffer.putLong(payload, phoneNumber);
+    buffer.put(payload + Long.BYTES, (byte) region.length);
+    buffer.put(payload + FIXED_PAYLOAD_SIZE, region);
+    buffer.put(payload + FIXED_PAYLOAD_SIZE + region.length, text);
+    buffer.putInt(position + Integer.BYTES, checksum(buffer, payload, length));
+    buffer.putInt(position, length);
+    position += HEADER_SIZE + length;
+    appendedOffset = active.base + position;
+  }
+
+  private void rollOver() throws IOException
+  {
+    active.force(position);
+    Segment next = Segment.create(directory, active.base + active.size, segmentSize);
+    segments.put(next.base, next);
+    active = next;
+    position = 0;
+    appendedOffset = active.base;
+  }
+
+  private int recover(Segment segment)
+  {
+    int offset = 0;
+    while (offset + HEADER_SIZE <= segment.size)
+    {
+      int length = segment.buffer.getInt(offset);
+      if (length < FIXED_PAYLOAD_SIZE || offset + HEADER_SIZE + length > segment.size
+        || segment.buffer.getInt(offset + Integer.BYTES) != checksum(segment.buffer, offset + HEADER_SIZE, length))
+        break;
+      offset += HEADER_SIZE + length;
+    }
+    int dirty = segment.size;
+    while (dirty > offset && segment.buffer.get(dirty - 1) == 0)
+      dirty--;
+    if (dirty > offset)
+    {
+      for (int i = offset; i < dirty; i++)
+        segment.buffer.put(i, (byte) 0);
+      segment.buffer.force(offset, dirty - offset);
+    }
+    segment.forced = offset;
+    return offset;
+  }
+
+  private int checksum(ByteBuffer buffer, int offset, int length)
+  {
+    checksum.reset();
+    checksum.update(buffer.slice(offset, length));
+    return (int) checksum.getValue();
+  }
+
+  private static SmsMessage decode(ByteBuffer buffer, int offset, int length)
+  {
+    long phoneNumber = buffer.getLong(offset);
+    int regionLength = buffer.get(offset + Long.BYTES);
+    byte[] region = new byte[regionLength];
+    buffer.get(offset + FIXED_PAYLOAD_SIZE, region);
+    byte[] text = new byte[length - FIXED_PAYLOAD_SIZE - regionLength];
+    buffer.get(offset + FIXED_PAYLOAD_SIZE + regionLength, text);
+    return new SmsMessage(new E164Number(phoneNumber, new String(region, StandardCharsets.US_ASCII)),
+      new String(text, StandardCharsets.UTF_8));
+  }
+
+  private void commitLoop()
+  {
+    while (true)
+    {
+      Segment segment;
+      int end;
+      long target;
+      lock.lock();
+      try
+      {
+        while (open && appendedOffset == durableOffset)
+          appended.awaitUninterruptibly();
+        if (appendedOffset == durableOffset)
+          return;
+        segment = active;
+        end = position;
+        target = appendedOffset;
+      }
+      finally
+      {
+        lock.unlock();
+      }
+      segment.force(end);
+      lock.lock();
+      try
+      {
+        durableOffset = target;
+        while (!pendingCommits.isEmpty() && pendingCommits.peek().offset() <= target)
+          pendingCommits.poll().commit().complete(null);
+        committed.signalAll();
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+  }
+
+  private static Result<String> awaitCommit(E164Number phoneNumber, CompletableFuture<Void> commit)
+  {
+    try
+    {
+      commit.join();
+      return new Success<>(phoneNumber.toString());
+    }
+    catch (CompletionException e)
+    {
+      return new Failure<>(FailureReason.QUEUE_REJECTED, REJECTED, phoneNumber, e.getCause().getMessage());
+    }
+  }
+
+  private record PendingCommit(long offset, CompletableFuture<Void> commit)
+  {
+  }
+
+  private static final class Segment
+  {
+    private final long base;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private int forced;
+
+    private Segment(long base, Path path, FileChannel channel, int size) throws IOException
+    {
+      this.base = base;
+      this.path = path;
+      this.channel = channel;
+      this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      this.size = size;
+    }
+
+    private static Segment create(Path directory, long base, int size) throws IOException
+    {
+      Path path = directory.resolve("%020d%s".formatted(base, SEGMENT_SUFFIX));
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+      return new Segment(base, path, channel, size);
+    }
+
+    private static Segment open(Path path) throws IOException
+    {
+      String name = path.getFileName().toString();
+      long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      return new Segment(base, path, channel, (int) channel.size());
+    }
+
+    private synchronized void force(int end)
+    {
+      if (end > forced)
+      {
+        buffer.force(forced, end - forced);
+        forced = end;
+      }
+    }
+
+    private void delete() throws IOException
+    {
+      channel.close();
+      Files.deleteIfExists(path);
+    }
+  }
+}
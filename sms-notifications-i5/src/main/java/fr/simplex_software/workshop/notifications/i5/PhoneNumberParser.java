@@ -0,0 +1,50 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import com.google.i18n.phonenumbers.*;
+
+public final class PhoneNumberParser
+{
+  private static final MessageTemplate UNPARSEABLE =
+    MessageTemplate.compile("### The phone number {number} cannot be parsed for region {region}");
+  static final MessageTemplate WRONG_REGION =
+    MessageTemplate.compile("### The phone number {number} is not for region {region}");
+
+  private final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+  private final PhoneNumberPreFilter preFilter = PhoneNumberPreFilter.getInstance();
+
+  private PhoneNumberParser() {}
+
+  public static PhoneNumberParser getInstance()
+  {
+    return Holder.INSTANCE;
+  }
+
+  public Result<Phonenumber.PhoneNumber> parse(String number, String region)
+  {
+    if (number == null)
+      return unparseable(number, region);
+    FailureReason rejection = preFilter.rejection(number, region);
+    if (rejection == FailureReason.WRONG_REGION)
+      return new Failure<>(FailureReason.WRONG_REGION, WRONG_REGION, number, region);
+    if (rejection != null)
+      return unparseable(number, region);
+    try
+    {
+      return new Success<>(phoneNumberUtil.parse(number, region));
+    }
+    catch (NumberParseException e)
+    {
+      return unparseable(number, region);
+    }
+  }
+
+  private static Result<Phonenumber.PhoneNumber> unparseable(String number, String region)
+  {
+    return new Failure<>(FailureReason.UNPARSEABLE_NUMBER, UNPARSEABLE, number, region);
+  }
+
+  private static final class Holder
+  {
+    private static final PhoneNumberParser INSTANCE = new PhoneNumberParser();
+  }
+}
@@ -0,0 +1,175 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import com.google.i18n.phonenumbers.*;
+import com.google.i18n.phonenumbers.metadata.*;
+import com.google.i18n.phonenumbers.metadata.source.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.*;
+
+public final class PhoneNumberPreFilter
+{
+  private static final int MAX_INPUT_LENGTH = 250;
+  private static final int MIN_DIGITS = 2;
+  private static final int MAX_NATIONAL_DIGITS = 17;
+  private static final int MAX_COUNTRY_CODE_LENGTH = 3;
+  private static final int UNBOUNDED = 0xFFFF;
+  private static final int COMPUTED = 1 << 30;
+  private static final String NON_GEO_REGION = PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY;
+
+  private final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+  private final MetadataSource metadataSource =
+    DefaultMetadataDependenciesProvider.getInstance().getPhoneNumberMetadataSource();
+  private final boolean[] countryCodes = new boolean[1_000];
+  private final int[] nationalLengths = new int[1_000];
+  private final Set<String> regions;
+  private final Map<String, boolean[]> retryPrefixes = new ConcurrentHashMap<>();
+
+  private PhoneNumberPreFilter()
+  {
+    for (int countryCode = 1; countryCode < countryCodes.length; countryCode++)
+      countryCodes[countryCode] = !phoneNumberUtil.getRegionCodesForCountryCode(countryCode).isEmpty();
+    regions = new HashSet<>(phoneNumberUtil.getSupportedRegions());
+  }
+
+  public static PhoneNumberPreFilter getInstance()
+  {
+    return Holder.INSTANCE;
+  }
+
+  public boolean rejects(String number, String region)
+  {
+    return rejection(number, region) != null;
+  }
+
+  public FailureReason rejection(String number, String region)
+  {
+    int length = number.length();
+    if (length > MAX_INPUT_LENGTH)
+      return FailureReason.UNPARSEABLE_NUMBER;
+    int digits = 0;
+    int leadingDigits = 0;
+    int pluses = 0;
+    boolean plusFirst = false;
+    boolean decidable = true;
+    for (int i = 0; i < length; i++)
+    {
+      char c = number.charAt(i);
+      if (c >= '0' && c <= '9')
+      {
+        if (digits < MAX_COUNTRY_CODE_LENGTH)
+          leadingDigits = leadingDigits * 10 + (c - '0');
+        digits++;
+      }
+      else if (c == '+')
+      {
+        plusFirst = pluses == 0 && digits == 0;
+        pluses++;
+      }
+      else if (c == ' ' || c == '-' || c == '.' || c == '(' || c == ')')
+        continue;
+      else if (Character.isSurrogate(c))
+        return null;
+      else
+      {
+        if (Character.isDigit(c))
+          digits++;
+        decidable = false;
+      }
+    }
+    if (digits < MIN_DIGITS)
+      return FailureReason.UNPARSEABLE_NUMBER;
+    if (!decidable || pluses > 1 || (pluses == 1 && !plusFirst))
+      return null;
+    if (pluses == 1)
+      return internationalRejection(digits, leadingDigits, region);
+    return regions.contains(region) ? null : FailureReason.UNPARSEABLE_NUMBER;
+  }
+
+  private FailureReason internationalRejection(int digits, int leadingDigits, String region)
+  {
+    if (digits <= MIN_DIGITS)
+      return FailureReason.UNPARSEABLE_NUMBER;
+    for (int length = 1, divisor = 100; length <= MAX_COUNTRY_CODE_LENGTH && leadingDigits >= 100; length++, divisor /= 10)
+    {
+      int countryCode = leadingDigits / divisor;
+      if (countryCodes[countryCode])
+      {
+        int bounds = nationalLengths(countryCode);
+        int nationalLength = digits - length;
+        int max = bounds & UNBOUNDED;
+        if (nationalLength >= (bounds >>> 16 & 0xFF) && (max == UNBOUNDED || nationalLength <= max))
+          return null;
+        // libphonenumber parses these into a number that is not valid anywhere, except for the too short ones;
+        // the too long ones may still parse once a national prefix is stripped, so leave those to it
+        if (nationalLength < MIN_DIGITS)
+          return FailureReason.UNPARSEABLE_NUMBER;
+        return nationalLength > MAX_NATIONAL_DIGITS ? null : FailureReason.WRONG_REGION;
+      }
+    }
+    return !regions.contains(region) || !retryPrefixes.computeIfAbsent(region, this::computeRetryPrefixes)[leadingDigits]
+      ? FailureReason.UNPARSEABLE_NUMBER : null;
+  }
+
+  private boolean[] computeRetryPrefixes(String region)
+  {
+    Phonemetadata.PhoneMetadata metadata = metadataSource.getMetadataForRegion(region);
+    String countryCode = String.valueOf(metadata.getCountryCode());
+    Pattern internationalPrefix = metadata.getInternationalPrefix().isEmpty() ? null
+      : Pattern.compile(metadata.getInternationalPrefix());
+    boolean[] prefixes = new boolean[1_000];
+    for (int i = 0; i < prefixes.length; i++)
+    {
+      String prefix = "%03d".formatted(i);
+      if (prefix.startsWith(countryCode))
+        prefixes[i] = true;
+      else if (internationalPrefix != null)
+      {
+        Matcher matcher = internationalPrefix.matcher(prefix);
+        prefixes[i] = matcher.lookingAt() || matcher.hitEnd();
+      }
+    }
+    return prefixes;
+  }
+
+  private int nationalLengths(int countryCode)
+  {
+    int bounds = nationalLengths[countryCode];
+    if (bounds == 0)
+      nationalLengths[countryCode] = bounds = computeNationalLengths(countryCode);
+    return bounds;
+  }
+
+  private int computeNationalLengths(int countryCode)
+  {
+    int min = UNBOUNDED;
+    int max = 0;
+    for (String regionCode : phoneNumberUtil.getRegionCodesForCountryCode(countryCode))
+    {
+      Phonemetadata.PhoneMetadata metadata = NON_GEO_REGION.equals(regionCode)
+        ? metadataSource.getMetadataForNonGeographicalRegion(countryCode)
+        : metadataSource.getMetadataForRegion(regionCode);
+      List<Integer> lengths = metadata == null ? List.of() : metadata.getGeneralDesc().getPossibleLengthList();
+      if (lengths.isEmpty() || !metadata.getNationalPrefixTransformRule().isEmpty())
+        return COMPUTED | UNBOUNDED;
+      min = Math.min(min, Collections.min(lengths));
+      int prefixLength = strippablePrefixLength(metadata);
+      max = prefixLength == UNBOUNDED || max == UNBOUNDED
+        ? UNBOUNDED
+        : Math.max(max, Collections.max(lengths) + prefixLength);
+    }
+    return COMPUTED | min << 16 | max;
+  }
+
+  private static int strippablePrefixLength(Phonemetadata.PhoneMetadata metadata)
+  {
+    String prefix = metadata.getNationalPrefixForParsing();
+    return prefix.chars().allMatch(c -> c >= '0' && c <= '9') ? prefix.length() : UNBOUNDED;
+  }
+
+  private static final class Holder
+  {
+    private static final PhoneNumberPreFilter INSTANCE = new PhoneNumberPreFilter();
+  }
+}
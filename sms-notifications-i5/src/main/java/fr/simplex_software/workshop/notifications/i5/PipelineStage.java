@@ -0,0 +1,6 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+public enum PipelineStage
+{
+  VALIDATION, GUARD, SEND, DELIVERY
+}
@@ -0,0 +1,24 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.time.*;
+
+public record RateLimit(int permits, Duration period)
+{
+  public RateLimit
+  {
+    if (permits <= 0)
+      throw new IllegalArgumentException("### The number of permits must be positive: %d".formatted(permits));
+    if (period.isNegative() || period.isZero())
+      throw new IllegalArgumentException("### The period must be positive: %s".formatted(period));
+  }
+
+  long intervalNanos()
+  {
+    return Math.max(1, period.toNanos() / permits);
+  }
+
+  long toleranceNanos()
+  {
+    return intervalNanos() * (permits - 1);
+  }
+}
@@ -0,0 +1,25 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.time.*;
+
+public class RateLimited<T> extends Failure<T>
+{
+  private final Duration retryAfter;
+
+  public RateLimited(String message, Duration retryAfter)
+  {
+    super(FailureReason.RATE_LIMITED, message);
+    this.retryAfter = retryAfter;
+  }
+
+  public RateLimited(Duration retryAfter, MessageTemplate template, Object... values)
+  {
+    super(FailureReason.RATE_LIMITED, template, values);
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration retryAfter()
+  {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,120 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+public class RateLimiter implements SendGuard
+{
+  private static final long ALLOWED = 0L;
+  private static final int HEAD = 1;
+  private static final int LOG = 2;
+  private static final MessageTemplate LIMITED =
+    MessageTemplate.compile("### Rate limit exceeded for {number} ({scope}), retry after {retryAfter}");
+
+  private final int recipientPermits;
+  private final long recipientWindow;
+  private final long regionInterval;
+  private final long regionTolerance;
+  private final LongSupplier ticker;
+  private final StripedLongTable recipients;
+  private final StripedLongTable.Operation admit = this::admit;
+  private final StripedLongTable.Operation refund = this::refund;
+  private final ConcurrentHashMap<String, AtomicLong> regions = new ConcurrentHashMap<>();
+
+  public RateLimiter(RateLimit perRecipient, RateLimit perRegion)
+  {
+    this(perRecipient, perRegion, System::nanoTime);
+  }
+
+  public RateLimiter(RateLimit perRecipient, RateLimit perRegion, LongSupplier ticker)
+  {
+    this.recipientPermits = perRecipient.permits();
+    this.recipientWindow = perRecipient.period().toNanos();
+    this.regionInterval = perRegion.intervalNanos();
+    this.regionTolerance = perRegion.toleranceNanos();
+    this.ticker = Objects.requireNonNull(ticker);
+    this.recipients = new StripedLongTable(LOG + recipientPermits);
+  }
+
+  @Override
+  public Result<E164Number> check(E164Number phoneNumber, String message)
+  {
+    return check(phoneNumber);
+  }
+
+  public Result<E164Number> check(E164Number phoneNumber)
+  {
+    long now = ticker.getAsLong();
+    long key = phoneNumber.value();
+    long wait = recipients.compute(key, now, admit);
+    if (wait != ALLOWED)
+      return limited(phoneNumber, "recipient", wait);
+    wait = acquire(regionBucket(phoneNumber.region()), now);
+    if (wait != ALLOWED)
+    {
+      recipients.computeIfPresent(key, now, refund);
+      return limited(phoneNumber, "region " + phoneNumber.region(), wait);
+    }
+    return new Success<>(phoneNumber);
+  }
+
+  public int trackedRecipients()
+  {
+    return recipients.size();
+  }
+
+  private long admit(long[] values, int offset, boolean present, long now)
+  {
+    if (!present)
+      Arrays.fill(values, offset + LOG, offset + LOG + recipientPermits, now - recipientWindow);
+    int head = (int) values[offset + HEAD];
+    long wait = values[offset + LOG + head] + recipientWindow - now;
+    if (wait > 0)
+      return wait;
+    values[offset + LOG + head] = now;
+    values[offset + HEAD] = head + 1 == recipientPermits ? 0 : head + 1;
+    values[offset] = now + recipientWindow;
+    return ALLOWED;
+  }
+
+  private long refund(long[] values, int offset, boolean present, long now)
+  {
+    int head = (int) values[offset + HEAD];
+    int previous = head == 0 ? recipientPermits - 1 : head - 1;
+    if (values[offset + LOG + previous] == now)
+    {
+      values[offset + LOG + previous] = now - recipientWindow;
+      values[offset + HEAD] = previous;
+    }
+    return ALLOWED;
+  }
+
+  private AtomicLong regionBucket(String region)
+  {
+    AtomicLong bucket = regions.get(region);
+    return bucket != null ? bucket : regions.computeIfAbsent(region, key -> new AtomicLong(Long.MIN_VALUE));
+  }
+
+  private long acquire(AtomicLong bucket, long now)
+  {
+    while (true)
+    {
+      long stored = bucket.get();
+      long arrival = stored == Long.MIN_VALUE || stored - now < 0 ? now : stored;
+      long wait = arrival - now - regionTolerance;
+      if (wait > 0)
+        return wait;
+      if (bucket.compareAndSet(stored, arrival + regionInterval))
+        return ALLOWED;
+    }
+  }
+
+  private static Result<E164Number> limited(E164Number phoneNumber, String scope, long waitNanos)
+  {
+    Duration retryAfter = Duration.ofNanos(waitNanos);
+    return new RateLimited<>(retryAfter, LIMITED, phoneNumber, scope, retryAfter);
+  }
+}
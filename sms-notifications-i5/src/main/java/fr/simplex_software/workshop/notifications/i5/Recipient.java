@@ -0,0 +1,5 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+public record Recipient(String number, String region)
+{
+}
@@ -0,0 +1,39 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class RecordingSmsGateway implements SmsGateway
+{
+  private final List<RecordedBatch> batches = new CopyOnWriteArrayList<>();
+
+  @Override
+  public Result<String> send(E164Number phoneNumber, String message)
+  {
+    return sendBatch(List.of(new SmsMessage(phoneNumber, message))).get(0);
+  }
+
+  @Override
+  public List<Result<String>> sendBatch(List<SmsMessage> messages)
+  {
+    batches.add(new RecordedBatch(List.copyOf(messages), System.nanoTime()));
+    List<Result<String>> results = new ArrayList<>(messages.size());
+    for (SmsMessage message : messages)
+      results.add(new Success<>(message.phoneNumber().toString()));
+    return results;
+  }
+
+  public List<RecordedBatch> batches()
+  {
+    return List.copyOf(batches);
+  }
+
+  public long messageCount()
+  {
+    return batches.stream().mapToLong(batch -> batch.messages().size()).sum();
+  }
+
+  public record RecordedBatch(List<SmsMessage> messages, long flushedAtNanos)
+  {
+  }
+}
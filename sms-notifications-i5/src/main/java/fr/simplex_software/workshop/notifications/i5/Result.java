@@ -1,11 +1,24 @@
 package fr.simplex_software.workshop.notifications.i5;
 
+import java.util.*;
 import java.util.function.*;
 
 public interface Result<T>
 {
   void ifSuccess(Consumer<T> success, Consumer<String> failure);
 
+  boolean isSuccess();
+
+  <U> Result<U> map(Function<? super T, ? extends U> mapper);
+
+  <U> Result<U> flatMap(Function<? super T, ? extends Result<U>> mapper);
+
+  <U> U fold(Function<? super T, ? extends U> success, Function<String, ? extends U> failure);
+
+  Result<T> recover(Function<String, ? extends T> recovery);
+
+  T orElse(T other);
+
   default Result<T> success(T t)
   {
     return new Success(t);
@@ -14,4 +27,22 @@ public interface Result<T>
   {
     return new Failure<>(message);
   }
+
+  @SuppressWarnings("unchecked")
+  static <T> Result<List<T>> sequence(List<? extends Result<? extends T>> results)
+  {
+    List<T> values = new ArrayList<>(results.size());
+    for (Result<? extends T> result : results)
+    {
+      if (!result.isSuccess())
+        return (Result<List<T>>) result;
+      values.add(result.orElse(null));
+    }
+    return new Success<>(Collections.unmodifiableList(values));
+  }
+
+  static <A, B, R> Result<R> combine(Result<A> first, Result<B> second, BiFunction<? super A, ? super B, ? extends R> combiner)
+  {
+    return first.flatMap(a -> second.map(b -> combiner.apply(a, b)));
+  }
 }
@@ -0,0 +1,39 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.time.*;
+import java.util.concurrent.*;
+
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double jitter)
+{
+  private static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 0);
+
+  public RetryPolicy
+  {
+    if (maxAttempts <= 0)
+      throw new IllegalArgumentException("### The maximum number of attempts must be positive: %d".formatted(maxAttempts));
+    if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0)
+      throw new IllegalArgumentException("### Invalid backoff: %s..%s".formatted(initialBackoff, maxBackoff));
+    if (jitter < 0 || jitter > 1)
+      throw new IllegalArgumentException("### The jitter must be between 0 and 1: %s".formatted(jitter));
+  }
+
+  public static RetryPolicy none()
+  {
+    return NONE;
+  }
+
+  public boolean retries()
+  {
+    return maxAttempts > 1;
+  }
+
+  long backoffNanos(int failedAttempts)
+  {
+    long maxNanos = maxBackoff.toNanos();
+    long backoff = initialBackoff.toNanos();
+    for (int i = 1; i < failedAttempts && backoff < maxNanos; i++)
+      backoff <<= 1;
+    backoff = Math.min(backoff, maxNanos);
+    return backoff - (long) (backoff * jitter * ThreadLocalRandom.current().nextDouble());
+  }
+}
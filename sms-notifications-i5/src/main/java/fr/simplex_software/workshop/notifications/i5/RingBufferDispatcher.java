@@ -0,0 +1,181 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.lang.invoke.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+public final class RingBufferDispatcher implements AutoCloseable
+{
+  private static final Logger LOG = Logger.getLogger(RingBufferDispatcher.class.getName());
+  private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+  private static final long CLOSED = Long.MIN_VALUE;
+
+  private final Entry[] entries;
+  private final int[] available;
+  private final int mask;
+  private final int indexShift;
+  private final int batchSize;
+  private final WaitStrategy waitStrategy;
+  private final DispatchHandler handler;
+  private final AtomicLong claimed = new AtomicLong();
+  private final AtomicLong workSequence = new AtomicLong(-1);
+  private final AtomicLong[] consumed;
+  private final Thread[] workers;
+  // Shared by every producer and only ever holds a minimum some producer has already seen, so a stale
+  // value just forces another minimumConsumed() scan; volatile rules out torn reads of the long.
+  private volatile long gatingCache = -1;
+
+  public RingBufferDispatcher(int ringSize, int consumers, int batchSize, WaitStrategy waitStrategy,
+    DispatchHandler handler)
+  {
+    if (ringSize <= 0 || Integer.bitCount(ringSize) != 1)
+      throw new IllegalArgumentException("### The ring size must be a power of two: %d".formatted(ringSize));
+    if (consumers <= 0)
+      throw new IllegalArgumentException("### The number of consumers must be positive: %d".formatted(consumers));
+    if (batchSize <= 0)
+      throw new IllegalArgumentException("### The batch size must be positive: %d".formatted(batchSize));
+    this.entries = new Entry[ringSize];
+    this.available = new int[ringSize];
+    this.mask = ringSize - 1;
+    this.indexShift = Integer.numberOfTrailingZeros(ringSize);
+    this.batchSize = batchSize;
+    this.waitStrategy = Objects.requireNonNull(waitStrategy);
+    this.handler = Objects.requireNonNull(handler);
+    for (int i = 0; i < ringSize; i++)
+    {
+      entries[i] = new Entry();
+      available[i] = -1;
+    }
+    this.consumed = new AtomicLong[consumers];
+    this.workers = new Thread[consumers];
+    for (int i = 0; i < consumers; i++)
+    {
+      AtomicLong sequence = consumed[i] = new AtomicLong(-1);
+      workers[i] = Thread.ofPlatform().name("sms-dispatcher-" + i).daemon().start(() -> run(sequence));
+    }
+  }
+
+  public boolean publish(String phoneNumber, String region, String message)
+  {
+    long sequence = claim();
+    if (sequence < 0)
+      return false;
+    int index = (int) sequence & mask;
+    Entry entry = entries[index];
+    entry.phoneNumber = phoneNumber;
+    entry.region = region;
+    entry.message = message;
+    AVAILABLE.setRelease(available, index, (int) (sequence >>> indexShift));
+    return true;
+  }
+
+  public long pending()
+  {
+    return (claimed.get() & ~CLOSED) - 1 - workSequence.get();
+  }
+
+  @Override
+  public void close()
+  {
+    for (long current = claimed.get(); current >= 0 && !claimed.compareAndSet(current, current | CLOSED); )
+      current = claimed.get();
+    for (Thread worker : workers)
+      try
+      {
+        worker.join();
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        return;
+      }
+  }
+
+  private long claim()
+  {
+    for (int idle = 0; ; )
+    {
+      long current = claimed.get();
+      if (current < 0)
+        return -1;
+      long wrapPoint = current - entries.length;
+      if (wrapPoint > gatingCache)
+      {
+        long gating = minimumConsumed();
+        gatingCache = gating;
+        if (wrapPoint > gating)
+        {
+          idle = waitStrategy.idle(idle);
+          continue;
+        }
+      }
+      if (claimed.compareAndSet(current, current + 1))
+        return current;
+    }
+  }
+
+  private long minimumConsumed()
+  {
+    long minimum = Long.MAX_VALUE;
+    for (AtomicLong sequence : consumed)
+      minimum = Math.min(minimum, sequence.get());
+    return minimum;
+  }
+
+  private void run(AtomicLong sequence)
+  {
+    for (int idle = 0; ; )
+    {
+      long start = workSequence.get() + 1;
+      sequence.set(start - 1);
+      long limit = claimed.get();
+      long end = highestPublished(start, Math.min((limit & ~CLOSED) - 1, start + batchSize - 1));
+      if (end < start)
+      {
+        if (limit < 0 && start >= (limit & ~CLOSED))
+          return;
+        idle = waitStrategy.idle(idle);
+        continue;
+      }
+      if (!workSequence.compareAndSet(start - 1, end))
+        continue;
+      idle = 0;
+      for (long next = start; next <= end; next++)
+        dispatch(entries[(int) next & mask]);
+    }
+  }
+
+  private long highestPublished(long start, long limit)
+  {
+    for (long next = start; next <= limit; next++)
+      if ((int) AVAILABLE.getAcquire(available, (int) next & mask) != (int) (next >>> indexShift))
+        return next - 1;
+    return limit;
+  }
+
+  private void dispatch(Entry entry)
+  {
+    try
+    {
+      handler.handle(entry.phoneNumber, entry.region, entry.message);
+    }
+    catch (RuntimeException e)
+    {
+      LOG.log(Level.WARNING, "### Cannot dispatch SMS to " + entry.phoneNumber, e);
+    }
+    finally
+    {
+      entry.phoneNumber = null;
+      entry.region = null;
+      entry.message = null;
+    }
+  }
+
+  private static final class Entry
+  {
+    private String phoneNumber;
+    private String region;
+    private String message;
+  }
+}
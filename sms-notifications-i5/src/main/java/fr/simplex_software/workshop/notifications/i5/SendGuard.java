@@ -0,0 +1,42 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+@FunctionalInterface
+public interface SendGuard
+{
+  Result<E164Number> check(E164Number phoneNumber, String message);
+
+  default void release(E164Number phoneNumber, String message)
+  {
+  }
+
+  default SendGuard andThen(SendGuard next)
+  {
+    SendGuard first = this;
+    return new SendGuard()
+    {
+      @Override
+      public Result<E164Number> check(E164Number phoneNumber, String message)
+      {
+        Result<E164Number> checked = first.check(phoneNumber, message);
+        if (!checked.isSuccess())
+          return checked;
+        Result<E164Number> result = next.check(phoneNumber, message);
+        if (!result.isSuccess())
+          first.release(phoneNumber, message);
+        return result;
+      }
+
+      @Override
+      public void release(E164Number phoneNumber, String message)
+      {
+        next.release(phoneNumber, message);
+        first.release(phoneNumber, message);
+      }
+    };
+  }
+
+  static SendGuard none()
+  {
+    return (phoneNumber, message) -> new Success<>(phoneNumber);
+  }
+}
@@ -0,0 +1,172 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.nio.*;
+import java.util.*;
+
+public final class SmsEncoder
+{
+  private static final String BASIC = "@£$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞ\u001BÆæßÉ !\"#¤%&'()*+,-./0123456789:;<=>?"
+    + "¡ABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§¿abcdefghijklmnopqrstuvwxyzäöñüà";
+  private static final String EXTENSION = "\f^{}\\[~]|€";
+  private static final byte[] EXTENSION_CODES = {0x0A, 0x14, 0x28, 0x29, 0x2F, 0x3C, 0x3D, 0x3E, 0x40, 0x65};
+  private static final int ESCAPE = 0x1B;
+  private static final int EXTENDED = 0x100;
+  private static final char EURO = '€';
+  private static final int TABLE_SIZE = 0x400;
+  private static final short[] SEPTETS = new short[TABLE_SIZE];
+  private static final int GSM_SINGLE = 160;
+  private static final int GSM_PART = 153;
+  private static final int UCS2_SINGLE = 70;
+  private static final int UCS2_PART = 67;
+  private static final int UDH_LENGTH = 6;
+  private static final int UDH_SEPTETS = 7;
+  static final int MAX_SEGMENTS = 255;
+  private static final int SEGMENT_SIZE = 1 + 140;
+
+  static
+  {
+    Arrays.fill(SEPTETS, (short) -1);
+    for (int i = 0; i < BASIC.length(); i++)
+      if (i != ESCAPE)
+        SEPTETS[BASIC.charAt(i)] = (short) i;
+    for (int i = 0; i < EXTENSION.length(); i++)
+      if (EXTENSION.charAt(i) < TABLE_SIZE)
+        SEPTETS[EXTENSION.charAt(i)] = (short) (EXTENDED | EXTENSION_CODES[i]);
+  }
+
+  private ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_SIZE * 4);
+
+  public static SmsEncoding encodingOf(CharSequence text)
+  {
+    return gsmLength(text) < 0 ? SmsEncoding.UCS_2 : SmsEncoding.GSM_7;
+  }
+
+  public static int segmentCount(CharSequence text)
+  {
+    return segmentCount(text, gsmLength(text));
+  }
+
+  public EncodedSms encode(CharSequence text, int reference)
+  {
+    int septets = gsmLength(text);
+    SmsEncoding encoding = septets < 0 ? SmsEncoding.UCS_2 : SmsEncoding.GSM_7;
+    int segments = segmentCount(text, septets);
+    if (segments > MAX_SEGMENTS)
+      throw new IllegalArgumentException("### The message is too long: %d segments".formatted(segments));
+    if (buffer.capacity() < segments * SEGMENT_SIZE)
+      buffer = ByteBuffer.allocate(Integer.highestOneBit(segments * SEGMENT_SIZE) << 1);
+    buffer.clear();
+    if (segments == 1)
+      writeSegment(text, 0, text.length(), encoding);
+    else
+    {
+      int partSize = encoding == SmsEncoding.GSM_7 ? GSM_PART : UCS2_PART;
+      for (int start = 0, sequence = 1; start < text.length(); sequence++)
+      {
+        int end = start;
+        for (int used = 0, width; end < text.length() && used + (width = width(text, end, encoding)) <= partSize; )
+        {
+          used += width;
+          end += encoding == SmsEncoding.GSM_7 ? 1 : width;
+        }
+        int udl = buffer.position();
+        buffer.put((byte) 0).put((byte) 0x05).put((byte) 0x00).put((byte) 0x03).put((byte) reference)
+          .put((byte) segments).put((byte) sequence);
+        buffer.put(udl, (byte) (encoding == SmsEncoding.GSM_7
+          ? UDH_SEPTETS + packSeptets(text, start, end, 1)
+          : UDH_LENGTH + putUcs2(text, start, end)));
+        start = end;
+      }
+    }
+    return new EncodedSms(encoding, segments, buffer.flip().asReadOnlyBuffer());
+  }
+
+  private void writeSegment(CharSequence text, int start, int end, SmsEncoding encoding)
+  {
+    int udl = buffer.position();
+    buffer.put((byte) 0);
+    buffer.put(udl, (byte) (encoding == SmsEncoding.GSM_7 ? packSeptets(text, start, end, 0) : putUcs2(text, start, end)));
+  }
+
+  private int packSeptets(CharSequence text, int start, int end, int fillBits)
+  {
+    long bits = 0L;
+    int pending = fillBits;
+    int septets = 0;
+    for (int i = start; i < end; i++)
+    {
+      int septet = septet(text.charAt(i));
+      if (septet >= EXTENDED)
+      {
+        bits |= (long) ESCAPE << pending;
+        pending += 7;
+        septets++;
+      }
+      bits |= (long) (septet & 0x7F) << pending;
+      pending += 7;
+      septets++;
+      for (; pending >= 8; pending -= 8, bits >>>= 8)
+        buffer.put((byte) bits);
+    }
+    if (pending > 0 && septets > 0)
+      buffer.put((byte) bits);
+    return septets;
+  }
+
+  private int putUcs2(CharSequence text, int start, int end)
+  {
+    for (int i = start; i < end; i++)
+      buffer.putChar(text.charAt(i));
+    return (end - start) * Character.BYTES;
+  }
+
+  private static int gsmLength(CharSequence text)
+  {
+    int septets = 0;
+    for (int i = 0; i < text.length(); i++)
+    {
+      int septet = septet(text.charAt(i));
+      if (septet < 0)
+        return -1;
+      septets += septet >= EXTENDED ? 2 : 1;
+    }
+    return septets;
+  }
+
+  private static int segmentCount(CharSequence text, int septets)
+  {
+    if (septets >= 0)
+      return septets <= GSM_SINGLE ? 1 : partCount(text, SmsEncoding.GSM_7, GSM_PART);
+    return text.length() <= UCS2_SINGLE ? 1 : partCount(text, SmsEncoding.UCS_2, UCS2_PART);
+  }
+
+  private static int partCount(CharSequence text, SmsEncoding encoding, int partSize)
+  {
+    int segments = 1;
+    for (int i = 0, used = 0, width; i < text.length(); i += encoding == SmsEncoding.GSM_7 ? 1 : width)
+    {
+      width = width(text, i, encoding);
+      if (used + width > partSize)
+      {
+        segments++;
+        used = 0;
+      }
+      used += width;
+    }
+    return segments;
+  }
+
+  private static int width(CharSequence text, int index, SmsEncoding encoding)
+  {
+    char c = text.charAt(index);
+    if (encoding == SmsEncoding.GSM_7)
+      return septet(c) >= EXTENDED ? 2 : 1;
+    return Character.isHighSurrogate(c) && index + 1 < text.length()
+      && Character.isLowSurrogate(text.charAt(index + 1)) ? 2 : 1;
+  }
+
+  private static int septet(char c)
+  {
+    return c < TABLE_SIZE ? SEPTETS[c] : c == EURO ? EXTENDED | 0x65 : -1;
+  }
+}
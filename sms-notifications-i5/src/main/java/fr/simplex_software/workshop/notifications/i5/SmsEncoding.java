@@ -0,0 +1,6 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+public enum SmsEncoding
+{
+  GSM_7, UCS_2
+}
@@ -0,0 +1,22 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.*;
+
+@FunctionalInterface
+public interface SmsGateway
+{
+  Result<String> send(E164Number phoneNumber, String message);
+
+  default List<Result<String>> sendBatch(List<SmsMessage> messages)
+  {
+    List<Result<String>> results = new ArrayList<>(messages.size());
+    for (SmsMessage message : messages)
+      results.add(send(message.phoneNumber(), message.message()));
+    return results;
+  }
+
+  static SmsGateway load()
+  {
+    return ServiceLoader.load(SmsGateway.class).findFirst().orElseGet(LoggingSmsGateway::new);
+  }
+}
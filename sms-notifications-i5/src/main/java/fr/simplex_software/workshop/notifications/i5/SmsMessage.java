@@ -0,0 +1,9 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+public record SmsMessage(E164Number phoneNumber, String message)
+{
+  public int segments()
+  {
+    return SmsEncoder.segmentCount(message);
+  }
+}
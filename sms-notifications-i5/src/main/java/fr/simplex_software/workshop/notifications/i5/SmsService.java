@@ -1,13 +1,154 @@
 package fr.simplex_software.workshop.notifications.i5;
 
-import java.util.logging.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
 
-public class SmsService
+public class SmsService implements AutoCloseable
 {
-  private static final Logger LOG = Logger.getLogger(SmsService.class.getName());
+  private static final int DEFAULT_MAX_IN_FLIGHT = 1_000;
+  private static final Duration RETRY_TICK = Duration.ofMillis(10);
+  private static final int RETRY_WHEEL_SIZE = 4_096;
+  private static final MessageTemplate GAVE_UP =
+    MessageTemplate.compile("### Gave up sending SMS to {number} after {attempts} attempts: {error}");
+  private static final MessageTemplate INTERRUPTED =
+    MessageTemplate.compile("### Interrupted while sending SMS to {number}");
+  private static final MessageTemplate UNEXPECTED =
+    MessageTemplate.compile("### Unexpected exception while sending SMS to {number}: {error}");
 
-  public void send(String phoneNumber, String message)
+  private final SmsGateway gateway;
+  private final Semaphore inFlight;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final RetryPolicy retryPolicy;
+  private final DeadLetterSink deadLetters;
+  private final TimingWheel<Retry> retries;
+  private final NotificationMetrics metrics;
+
+  public SmsService()
+  {
+    this(SmsGateway.load(), DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  public SmsService(SmsGateway gateway, int maxInFlight)
   {
-    LOG.info(">>> Sending SMS to %s: %s".formatted(phoneNumber, message));
+    this(gateway, maxInFlight, RetryPolicy.none(), (message, attempts, lastError) -> {});
+  }
+
+  public SmsService(SmsGateway gateway, int maxInFlight, RetryPolicy retryPolicy, DeadLetterSink deadLetters)
+  {
+    this(gateway, maxInFlight, retryPolicy, deadLetters, new NotificationMetrics());
+  }
+
+  public SmsService(SmsGateway gateway, int maxInFlight, RetryPolicy retryPolicy, DeadLetterSink deadLetters,
+    NotificationMetrics metrics)
+  {
+    this.gateway = Objects.requireNonNull(gateway);
+    this.inFlight = new Semaphore(maxInFlight);
+    this.retryPolicy = Objects.requireNonNull(retryPolicy);
+    this.deadLetters = Objects.requireNonNull(deadLetters);
+    this.metrics = Objects.requireNonNull(metrics);
+    this.retries = retryPolicy.retries()
+      ? new TimingWheel<>(RETRY_TICK, RETRY_WHEEL_SIZE, retry -> executor.execute(() -> attempt(retry)))
+      : null;
+  }
+
+  public CompletableFuture<Result<String>> send(E164Number phoneNumber, String message)
+  {
+    Retry retry = new Retry(new SmsMessage(phoneNumber, message), new CompletableFuture<>(), metrics.start());
+    attempt(retry);
+    return retry.delivery;
+  }
+
+  public CompletableFuture<Result<String>> sendAsync(E164Number phoneNumber, String message)
+  {
+    Retry retry = new Retry(new SmsMessage(phoneNumber, message), new CompletableFuture<>(), metrics.start());
+    executor.execute(() -> attempt(retry));
+    return retry.delivery;
+  }
+
+  public NotificationMetrics metrics()
+  {
+    return metrics;
+  }
+
+  public int pendingRetries()
+  {
+    return retries == null ? 0 : retries.pending();
+  }
+
+  private void attempt(Retry retry)
+  {
+    long start = metrics.start();
+    Result<String> result = deliver(retry.message.phoneNumber(), retry.message.message());
+    metrics.record(PipelineStage.SEND, start, result);
+    retry.attempts++;
+    if (result instanceof TransientFailure<String> failure && retries != null)
+    {
+      if (retry.attempts < retryPolicy.maxAttempts() && retries.schedule(retry, retryPolicy.backoffNanos(retry.attempts)))
+        return;
+      result = giveUp(retry, failure.getMessage());
+    }
+    complete(retry, result);
+  }
+
+  private void complete(Retry retry, Result<String> result)
+  {
+    metrics.record(PipelineStage.DELIVERY, retry.started, result);
+    retry.delivery.complete(result);
+  }
+
+  private Result<String> giveUp(Retry retry, String lastError)
+  {
+    deadLetters.accept(retry.message, retry.attempts, lastError);
+    return new Failure<>(FailureReason.GAVE_UP, GAVE_UP, retry.message.phoneNumber(), retry.attempts, lastError);
+  }
+
+  private Result<String> deliver(E164Number phoneNumber, String message)
+  {
+    try
+    {
+      inFlight.acquire();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      return new Failure<>(FailureReason.INTERRUPTED, INTERRUPTED, phoneNumber);
+    }
+    try
+    {
+      return gateway.send(phoneNumber, message);
+    }
+    catch (RuntimeException e)
+    {
+      return new Failure<>(FailureReason.GATEWAY_ERROR, UNEXPECTED, phoneNumber, e.getMessage());
+    }
+    finally
+    {
+      inFlight.release();
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    if (retries != null)
+      for (Retry retry : retries.shutdown())
+        complete(retry, giveUp(retry, "### The SMS service is closed"));
+    executor.close();
+  }
+
+  private static final class Retry
+  {
+    private final SmsMessage message;
+    private final CompletableFuture<Result<String>> delivery;
+    private final long started;
+    private int attempts;
+
+    private Retry(SmsMessage message, CompletableFuture<Result<String>> delivery, long started)
+    {
+      this.message = message;
+      this.delivery = delivery;
+      this.started = started;
+    }
   }
 }
@@ -0,0 +1,11 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.*;
+
+public record StageMetrics(long successes, Map<FailureReason, Long> failures, LatencySnapshot latency)
+{
+  public long failureCount()
+  {
+    return failures.values().stream().mapToLong(Long::longValue).sum();
+  }
+}
@@ -0,0 +1,116 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+// Keys must be non-zero. The first long of every entry is its deadline: entries past it are dropped when a stripe
+// would otherwise grow.
+final class StripedLongTable
+{
+  private static final int STRIPES = 64;
+  private static final long PHI = 0x9E3779B97F4A7C15L;
+
+  @FunctionalInterface
+  interface Operation
+  {
+    long apply(long[] values, int offset, boolean present, long now);
+  }
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  StripedLongTable(int width)
+  {
+    if (width <= 0)
+      throw new IllegalArgumentException("### The entry width must be positive: %d".formatted(width));
+    for (int i = 0; i < STRIPES; i++)
+      stripes[i] = new Stripe(width);
+  }
+
+  long compute(long key, long now, Operation operation)
+  {
+    long mixed = key * PHI;
+    return stripes[(int) (mixed >>> 58)].compute(key, mixed, now, operation, true);
+  }
+
+  void computeIfPresent(long key, long now, Operation operation)
+  {
+    long mixed = key * PHI;
+    stripes[(int) (mixed >>> 58)].compute(key, mixed, now, operation, false);
+  }
+
+  int size()
+  {
+    int size = 0;
+    for (Stripe stripe : stripes)
+      size += stripe.size();
+    return size;
+  }
+
+  private static final class Stripe
+  {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int width;
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] values;
+    private int size;
+
+    private Stripe(int width)
+    {
+      this.width = width;
+      this.values = new long[INITIAL_CAPACITY * width];
+    }
+
+    private synchronized long compute(long key, long mixed, long now, Operation operation, boolean insert)
+    {
+      int index = indexOf(key, mixed);
+      if (keys[index] == key)
+        return operation.apply(values, index * width, true, now);
+      if (!insert)
+        return 0L;
+      if (size + 1 > keys.length - (keys.length >>> 2))
+      {
+        rebuild(now);
+        index = indexOf(key, mixed);
+      }
+      keys[index] = key;
+      size++;
+      return operation.apply(values, index * width, false, now);
+    }
+
+    private synchronized int size()
+    {
+      return size;
+    }
+
+    private int indexOf(long key, long mixed)
+    {
+      int mask = keys.length - 1;
+      int index = (int) mixed & mask;
+      while (keys[index] != 0 && keys[index] != key)
+        index = (index + 1) & mask;
+      return index;
+    }
+
+    private void rebuild(long now)
+    {
+      long[] oldKeys = keys;
+      long[] oldValues = values;
+      int live = 0;
+      for (int i = 0; i < oldKeys.length; i++)
+        if (oldKeys[i] != 0 && oldValues[i * width] - now > 0)
+          live++;
+      int capacity = INITIAL_CAPACITY;
+      while (capacity - (capacity >>> 1) < live + 1)
+        capacity <<= 1;
+      keys = new long[capacity];
+      values = new long[capacity * width];
+      size = 0;
+      for (int i = 0; i < oldKeys.length; i++)
+        if (oldKeys[i] != 0 && oldValues[i * width] - now > 0)
+        {
+          int index = indexOf(oldKeys[i], oldKeys[i] * PHI);
+          keys[index] = oldKeys[i];
+          System.arraycopy(oldValues, i * width, values, index * width, width);
+          size++;
+        }
+    }
+  }
+}
@@ -16,4 +16,41 @@ public class Success<T> implements Result<T>
   {
     success.accept(t);
   }
+
+  @Override
+  public boolean isSuccess()
+  {
+    return true;
+  }
+
+  @Override
+  public <U> Result<U> map(Function<? super T, ? extends U> mapper)
+  {
+    return new Success<>(mapper.apply(t));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <U> Result<U> flatMap(Function<? super T, ? extends Result<U>> mapper)
+  {
+    return (Result<U>) mapper.apply(t);
+  }
+
+  @Override
+  public <U> U fold(Function<? super T, ? extends U> success, Function<String, ? extends U> failure)
+  {
+    return success.apply(t);
+  }
+
+  @Override
+  public Result<T> recover(Function<String, ? extends T> recovery)
+  {
+    return this;
+  }
+
+  @Override
+  public T orElse(T other)
+  {
+    return t;
+  }
 }
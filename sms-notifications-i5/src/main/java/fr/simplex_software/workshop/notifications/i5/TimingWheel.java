@@ -0,0 +1,168 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+public final class TimingWheel<T> implements AutoCloseable
+{
+  private final long tickNanos;
+  private final Bucket[] buckets;
+  private final int mask;
+  private final Consumer<T> expiry;
+  private final long start = System.nanoTime();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final Thread worker;
+  private volatile long currentTick;
+  private volatile boolean running = true;
+
+  public TimingWheel(Duration tick, int wheelSize, Consumer<T> expiry)
+  {
+    if (tick.isNegative() || tick.isZero())
+      throw new IllegalArgumentException("### The tick must be positive: %s".formatted(tick));
+    if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1)
+      throw new IllegalArgumentException("### The wheel size must be a power of two: %d".formatted(wheelSize));
+    this.tickNanos = tick.toNanos();
+    this.buckets = new Bucket[wheelSize];
+    this.mask = wheelSize - 1;
+    this.expiry = Objects.requireNonNull(expiry);
+    for (int i = 0; i < wheelSize; i++)
+      buckets[i] = new Bucket();
+    this.worker = Thread.ofPlatform().name("timing-wheel").daemon().start(this::run);
+  }
+
+  public boolean schedule(T item, long delayNanos)
+  {
+    if (!running)
+      return false;
+    long deadline = System.nanoTime() - start + Math.max(0, delayNanos);
+    long tick = Math.max((deadline + tickNanos - 1) / tickNanos, currentTick + 1);
+    pending.incrementAndGet();
+    if (!buckets[(int) (tick & mask)].add(item, tick))
+    {
+      pending.decrementAndGet();
+      if (!running)
+        return false;
+      expiry.accept(item);
+    }
+    else if (!running && buckets[(int) (tick & mask)].remove(item))
+    {
+      // shutdown() began after the check above and may have drained this bucket already
+      pending.decrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  public int pending()
+  {
+    return pending.get();
+  }
+
+  @Override
+  public void close()
+  {
+    shutdown();
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<T> shutdown()
+  {
+    running = false;
+    LockSupport.unpark(worker);
+    try
+    {
+      worker.join();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    List<Object> remaining = new ArrayList<>();
+    for (Bucket bucket : buckets)
+      bucket.expire(Long.MAX_VALUE, remaining);
+    pending.addAndGet(-remaining.size());
+    return (List<T>) remaining;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void run()
+  {
+    List<Object> due = new ArrayList<>();
+    for (long tick = 1; running; tick++)
+    {
+      long deadline = start + tick * tickNanos;
+      for (long wait = deadline - System.nanoTime(); wait > 0 && running; wait = deadline - System.nanoTime())
+        LockSupport.parkNanos(wait);
+      if (!running)
+        return;
+      buckets[(int) (tick & mask)].expire(tick, due);
+      currentTick = tick;
+      pending.addAndGet(-due.size());
+      for (Object item : due)
+        expiry.accept((T) item);
+      due.clear();
+    }
+  }
+
+  private static final class Bucket
+  {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private Object[] items = new Object[INITIAL_CAPACITY];
+    private long[] ticks = new long[INITIAL_CAPACITY];
+    private int size;
+    private long expiredTick;
+
+    private synchronized boolean add(Object item, long tick)
+    {
+      if (tick <= expiredTick)
+        return false;
+      if (size == items.length)
+      {
+        items = Arrays.copyOf(items, size * 2);
+        ticks = Arrays.copyOf(ticks, size * 2);
+      }
+      items[size] = item;
+      ticks[size++] = tick;
+      return true;
+    }
+
+    private synchronized boolean remove(Object item)
+    {
+      for (int i = 0; i < size; i++)
+        if (items[i] == item)
+        {
+          System.arraycopy(items, i + 1, items, i, size - i - 1);
+          System.arraycopy(ticks, i + 1, ticks, i, size - i - 1);
+          items[--size] = null;
+          return true;
+        }
+      return false;
+    }
+
+    private synchronized void expire(long tick, List<Object> due)
+    {
+      expiredTick = tick;
+      int kept = 0;
+      for (int i = 0; i < size; i++)
+        if (ticks[i] <= tick)
+          due.add(items[i]);
+        else
+        {
+          items[kept] = items[i];
+          ticks[kept++] = ticks[i];
+        }
+      Arrays.fill(items, kept, size, null);
+      size = kept;
+      if (items.length > INITIAL_CAPACITY && size < items.length >>> 2)
+      {
+        int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, size)) << 1);
+        items = Arrays.copyOf(items, capacity);
+        ticks = Arrays.copyOf(ticks, capacity);
+      }
+    }
+  }
+}
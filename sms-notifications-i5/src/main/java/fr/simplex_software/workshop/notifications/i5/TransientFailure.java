@@ -0,0 +1,9 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+public class TransientFailure<T> extends Failure<T>
+{
+  public TransientFailure(String message)
+  {
+    super(FailureReason.TRANSIENT, message);
+  }
+}
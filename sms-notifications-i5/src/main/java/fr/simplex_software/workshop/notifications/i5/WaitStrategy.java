@@ -0,0 +1,47 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.util.concurrent.locks.*;
+
+public enum WaitStrategy
+{
+  BUSY_SPIN
+    {
+      @Override
+      int idle(int counter)
+      {
+        Thread.onSpinWait();
+        return counter + 1;
+      }
+    },
+  YIELDING
+    {
+      @Override
+      int idle(int counter)
+      {
+        if (counter < SPINS)
+          Thread.onSpinWait();
+        else
+          Thread.yield();
+        return counter + 1;
+      }
+    },
+  PARKING
+    {
+      @Override
+      int idle(int counter)
+      {
+        if (counter < SPINS)
+          Thread.onSpinWait();
+        else if (counter < SPINS * 2)
+          Thread.yield();
+        else
+          LockSupport.parkNanos(PARK_NANOS);
+        return counter + 1;
+      }
+    };
+
+  private static final int SPINS = 100;
+  private static final long PARK_NANOS = 50_000L;
+
+  abstract int idle(int counter);
+}
@@ -0,0 +1,12 @@
+package fr.simplex_software.workshop.notifications.i5;
+
+import java.time.*;
+import java.util.*;
+
+public record WarmupReport(Duration elapsed, Map<String, Duration> regions, Set<String> unsupportedRegions)
+{
+  public boolean isComplete()
+  {
+    return unsupportedRegions.isEmpty();
+  }
+}
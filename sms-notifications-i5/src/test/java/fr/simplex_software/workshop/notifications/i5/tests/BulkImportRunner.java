@@ -0,0 +1,50 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.concurrent.atomic.*;
+
+public class BulkImportRunner
+{
+  private static final long SAMPLE_MILLIS = 250;
+
+  public static void main(String... args) throws Exception
+  {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    AtomicLong peakLive = new AtomicLong();
+    AtomicBoolean importing = new AtomicBoolean(true);
+    Thread sampler = Thread.ofPlatform().name("live-heap-sampler").daemon().start(() ->
+    {
+      while (importing.get())
+      {
+        memory.gc();
+        peakLive.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        try
+        {
+          Thread.sleep(SAMPLE_MILLIS);
+        }
+        catch (InterruptedException e)
+        {
+          return;
+        }
+      }
+    });
+    try (SmsService smsService = new SmsService(new FakeSmsGateway(Duration.ZERO), 1))
+    {
+      Notification notification = new Notification(smsService);
+      BulkImporter importer = new BulkImporter(notification.phoneNumberValidator, 2);
+      ImportSummary summary = importer.importFile(Path.of(args[0]), Path.of(args[1]));
+      importing.set(false);
+      sampler.interrupt();
+      sampler.join();
+      System.out.println(summary.lines());
+      System.out.println(summary.accepted());
+      System.out.println(summary.rejected().getOrDefault(FailureReason.UNPARSEABLE_NUMBER, 0L));
+      System.out.println(peakLive.get());
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+
+import java.io.*;
+import java.nio.file.*;
+
+public class OutboundQueueWriter
+{
+  public static void main(String... args) throws IOException
+  {
+    OutboundQueue queue = OutboundQueue.open(Path.of(args[0]), Integer.parseInt(args[1]));
+    for (long i = 0; ; i++)
+    {
+      var commit = queue.enqueue(TestOutboundQueue.message(i));
+      if (i % 1_000 == 0)
+      {
+        commit.join();
+        System.out.println(i);
+        System.out.flush();
+      }
+    }
+  }
+}
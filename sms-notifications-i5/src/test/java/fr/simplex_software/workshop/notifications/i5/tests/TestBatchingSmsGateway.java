@@ -0,0 +1,130 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBatchingSmsGateway
+{
+  private static final E164Number PHONE_NUMBER = new E164Number(33615229808L, "FR");
+
+  @Test
+  public void testDefaultGatewayShouldBeLogging()
+  {
+    assertInstanceOf(LoggingSmsGateway.class, SmsGateway.load());
+  }
+
+  @Test
+  public void testBatchShouldBeFlushedWhenFull()
+  {
+    RecordingSmsGateway transport = new RecordingSmsGateway();
+    try (BatchingSmsGateway gateway = new BatchingSmsGateway(transport, 10, Duration.ofSeconds(30)))
+    {
+      List<CompletableFuture<Result<String>>> deliveries = new ArrayList<>();
+      for (int i = 0; i < 100; i++)
+        deliveries.add(gateway.submit(PHONE_NUMBER, "Message %d".formatted(i)));
+      deliveries.forEach(delivery -> assertInstanceOf(Success.class, delivery.join()));
+    }
+    assertEquals(10, transport.batches().size());
+    transport.batches().forEach(batch -> assertEquals(10, batch.messages().size()));
+    assertEquals("Message 0", transport.batches().get(0).messages().get(0).message());
+  }
+
+  @Test
+  public void testBatchShouldBeFlushedWhenDelayElapsed()
+  {
+    RecordingSmsGateway transport = new RecordingSmsGateway();
+    try (BatchingSmsGateway gateway = new BatchingSmsGateway(transport, 100, Duration.ofMillis(50)))
+    {
+      long start = System.nanoTime();
+      List<CompletableFuture<Result<String>>> deliveries = new ArrayList<>();
+      for (int i = 0; i < 3; i++)
+        deliveries.add(gateway.submit(PHONE_NUMBER, "Message %d".formatted(i)));
+      deliveries.forEach(CompletableFuture::join);
+      assertEquals(1, transport.batches().size());
+      assertEquals(3, transport.batches().get(0).messages().size());
+      Duration flushLatency = Duration.ofNanos(transport.batches().get(0).flushedAtNanos() - start);
+      assertTrue(flushLatency.compareTo(Duration.ofMillis(50)) >= 0, "flushed after " + flushLatency);
+    }
+  }
+
+  @Test
+  public void testCloseShouldFlushPendingMessages()
+  {
+    RecordingSmsGateway transport = new RecordingSmsGateway();
+    CompletableFuture<Result<String>> delivery;
+    try (BatchingSmsGateway gateway = new BatchingSmsGateway(transport, 100, Duration.ofSeconds(30)))
+    {
+      delivery = gateway.submit(PHONE_NUMBER, "Salut !");
+    }
+    assertInstanceOf(Success.class, delivery.join());
+    assertEquals(1, transport.messageCount());
+  }
+
+  @Test
+  public void testTransportFailureShouldFailTheBatch()
+  {
+    SmsGateway transport = new SmsGateway()
+    {
+      @Override
+      public Result<String> send(E164Number phoneNumber, String message)
+      {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public List<Result<String>> sendBatch(List<SmsMessage> messages)
+      {
+        throw new IllegalStateException("provider unavailable");
+      }
+    };
+    try (BatchingSmsGateway gateway = new BatchingSmsGateway(transport, 2, Duration.ofMillis(10)))
+    {
+      assertEquals(2, gateway.sendBatch(List.of(new SmsMessage(PHONE_NUMBER, "a"), new SmsMessage(PHONE_NUMBER, "b")))
+        .stream().filter(Failure.class::isInstance).count());
+    }
+  }
+
+  @Test
+  public void testAsyncSendsShouldBeBatched()
+  {
+    RecordingSmsGateway transport = new RecordingSmsGateway();
+    try (BatchingSmsGateway gateway = new BatchingSmsGateway(transport, 500, Duration.ofMillis(20));
+         SmsService smsService = new SmsService(gateway, 10_000))
+    {
+      List<CompletableFuture<Result<String>>> deliveries = new ArrayList<>();
+      for (int i = 0; i < 5_000; i++)
+        deliveries.add(smsService.sendAsync(PHONE_NUMBER, "Message %d".formatted(i)));
+      deliveries.forEach(delivery -> assertInstanceOf(Success.class, delivery.join()));
+    }
+    assertEquals(5_000, transport.messageCount());
+    assertTrue(transport.batches().size() < 5_000 / 10, "%d batches".formatted(transport.batches().size()));
+  }
+
+  @Test
+  public void testSubmitRacingCloseShouldAlwaysComplete() throws Exception
+  {
+    for (int round = 0; round < 20; round++)
+    {
+      BatchingSmsGateway gateway = new BatchingSmsGateway(new RecordingSmsGateway(), 8, Duration.ofMillis(1));
+      List<CompletableFuture<Result<String>>> deliveries = new CopyOnWriteArrayList<>();
+      CountDownLatch started = new CountDownLatch(1);
+      Thread submitter = Thread.ofPlatform().start(() ->
+      {
+        started.countDown();
+        for (int i = 0; i < 1_000; i++)
+          deliveries.add(gateway.submit(PHONE_NUMBER, "Message %d".formatted(i)));
+      });
+      started.await();
+      gateway.close();
+      submitter.join();
+      for (CompletableFuture<Result<String>> delivery : deliveries)
+        assertNotNull(delivery.get(5, TimeUnit.SECONDS));
+    }
+  }
+}
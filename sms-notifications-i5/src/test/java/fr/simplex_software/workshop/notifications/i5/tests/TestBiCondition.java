@@ -0,0 +1,48 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static fr.simplex_software.workshop.notifications.i5.BiCondition.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBiCondition
+{
+  private final AtomicInteger evaluated = new AtomicInteger();
+  private final BiFunction<Integer, Integer, Result<String>> compare = compile(
+    when((a, b) -> new Success<>("equal")),
+    when((a, b) -> evaluated.incrementAndGet() > 0 && a < b, (a, b) -> new Success<>("lower")),
+    when((a, b) -> evaluated.incrementAndGet() > 0 && a > b, (a, b) -> new Failure<>("greater")));
+
+  @Test
+  public void testFirstMatchingConditionShouldWin()
+  {
+    assertEquals("lower", successOf(compare.apply(1, 2)));
+    assertEquals(1, evaluated.get());
+  }
+
+  @Test
+  public void testDefaultConditionShouldApplyWhenNothingMatches()
+  {
+    assertEquals("equal", successOf(compare.apply(2, 2)));
+    assertEquals(2, evaluated.get());
+  }
+
+  @Test
+  public void testCompiledChainShouldBeReusable()
+  {
+    assertInstanceOf(Failure.class, compare.apply(3, 2));
+    assertEquals("lower", successOf(compare.apply(2, 3)));
+    assertEquals("equal", successOf(compare.apply(3, 3)));
+  }
+
+  private static String successOf(Result<String> result)
+  {
+    StringBuilder value = new StringBuilder();
+    result.ifSuccess(value::append, msg -> fail(msg));
+    return value.toString();
+  }
+}
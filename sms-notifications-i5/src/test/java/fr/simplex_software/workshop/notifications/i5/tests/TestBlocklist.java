@@ -0,0 +1,66 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBlocklist
+{
+  private static final E164Number BLOCKED = new E164Number(33615229808L, "FR");
+  private static final E164Number ALLOWED = new E164Number(33123456789L, "FR");
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testLoadShouldSkipCommentsAndBlankLines() throws IOException
+  {
+    Path file = Files.writeString(directory.resolve("blocklist.txt"), "# opt-outs\n+33615229808\n\n 4930123456 \n");
+    Blocklist blocklist = Blocklist.load(file);
+    assertEquals(2, blocklist.size());
+    assertTrue(blocklist.contains(BLOCKED));
+    assertTrue(blocklist.contains(new E164Number(4930123456L, "DE")));
+    assertFalse(blocklist.contains(ALLOWED));
+  }
+
+  @Test
+  public void testLoadShouldRejectInvalidLines() throws IOException
+  {
+    Path file = Files.writeString(directory.resolve("blocklist.txt"), "+33615229808\n06 15 22 98 08\n");
+    IOException e = assertThrows(IOException.class, () -> Blocklist.load(file));
+    assertTrue(e.getMessage().contains(":2:"), e.getMessage());
+  }
+
+  @Test
+  public void testCheckShouldFollowUpdates()
+  {
+    Blocklist blocklist = new Blocklist();
+    assertInstanceOf(Success.class, blocklist.check(BLOCKED));
+    assertTrue(blocklist.add(BLOCKED));
+    assertInstanceOf(Failure.class, blocklist.check(BLOCKED));
+    assertInstanceOf(Success.class, blocklist.check(ALLOWED));
+    assertTrue(blocklist.remove(BLOCKED));
+    assertInstanceOf(Success.class, blocklist.check(BLOCKED));
+  }
+
+  @Test
+  public void testBlockedNumbersShouldNotBeSent()
+  {
+    Blocklist blocklist = new Blocklist();
+    blocklist.add(BLOCKED);
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ZERO);
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      Notification notification = new Notification(smsService, blocklist);
+      assertInstanceOf(Failure.class, notification.sendNotificationAsync("06 15 22 98 08", "FR", "Salut !").join());
+      assertInstanceOf(Success.class, notification.sendNotificationAsync("+33123456789", "FR", "Salut !").join());
+    }
+    assertEquals(1, gateway.sent());
+  }
+}
@@ -0,0 +1,141 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBulkImporter
+{
+  private static final int LARGE_FILE_LINES = 10_000_000;
+  private static final int DISTINCT_LINES = 1_000;
+  private static final long MAX_HEAP = 64L << 20;
+  private static final long YOUNG_HEAP = 8L << 20;
+  // a regression keeping a single report byte per line would retain ~9 MB more for the larger file
+  private static final long LEAK_TOLERANCE = 2L << 20;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testEveryLineShouldBeReported() throws IOException
+  {
+    Path input = Files.writeString(directory.resolve("recipients.csv"), """
+      0615229808,FR,Nicolas
+      +33 6 15 22 98 09,FR
+      0615229808,US,Nicolas
+      not a number,FR
+
+      06.15.22.98.10,FR,a,b,c\r
+      0615229811,FR""");
+    Path report = directory.resolve("recipients.report");
+    try (SmsService smsService = new SmsService(new FakeSmsGateway(Duration.ZERO), 1))
+    {
+      ImportSummary summary = new Notification(smsService).bulkImporter(2).importFile(input, report);
+      assertEquals(new ImportSummary(7, 4, Map.of(FailureReason.WRONG_REGION, 1L,
+        FailureReason.UNPARSEABLE_NUMBER, 1L, FailureReason.EMPTY_NUMBER, 1L)), summary);
+      assertEquals(3, summary.rejectedCount());
+    }
+    byte[] codes = Files.readAllBytes(report);
+    assertEquals(7, codes.length);
+    assertEquals(BulkImporter.ACCEPTED, codes[0]);
+    assertEquals(BulkImporter.ACCEPTED, codes[1]);
+    assertEquals(FailureReason.WRONG_REGION, BulkImporter.reasonOf(codes[2]));
+    assertEquals(FailureReason.UNPARSEABLE_NUMBER, BulkImporter.reasonOf(codes[3]));
+    assertEquals(FailureReason.EMPTY_NUMBER, BulkImporter.reasonOf(codes[4]));
+    assertEquals(BulkImporter.ACCEPTED, codes[5]);
+    assertEquals(BulkImporter.ACCEPTED, codes[6]);
+  }
+
+  @Test
+  public void testChunkBoundariesShouldNotSplitLines() throws IOException
+  {
+    StringBuilder lines = new StringBuilder();
+    for (int i = 0; i < 10_000; i++)
+      lines.append(i).append(',').append(i % 3 == 0 ? "FR" : "DE").append(",Customer ").append(i).append('\n');
+    Path input = Files.writeString(directory.resolve("recipients.csv"), lines);
+    Path report = directory.resolve("recipients.report");
+    List<String> seen = Collections.synchronizedList(new ArrayList<>());
+    BiFunction<String, String, Result<String>> validator = (number, region) ->
+    {
+      seen.add(number);
+      return region.equals("FR") && Integer.parseInt(number) % 3 == 0 ? new Success<>(number)
+        : new Failure<>(FailureReason.WRONG_REGION, "### " + number);
+    };
+    ImportSummary summary = new BulkImporter(validator, 3, 100).importFile(input, report);
+    assertEquals(10_000, summary.lines());
+    assertEquals(3_334, summary.accepted());
+    assertEquals(10_000, new HashSet<>(seen).size());
+    byte[] codes = Files.readAllBytes(report);
+    for (int i = 0; i < codes.length; i++)
+      assertEquals(i % 3 == 0, codes[i] == BulkImporter.ACCEPTED, "line " + i);
+  }
+
+  @Test
+  public void testLinesLongerThanAChunkShouldBeRejected() throws IOException
+  {
+    Path input = Files.writeString(directory.resolve("recipients.csv"), "0615229808,FR," + "x".repeat(100) + "\n");
+    BulkImporter importer = new BulkImporter((number, region) -> new Success<>(number), 1, 64);
+    assertThrows(IOException.class, () -> importer.importFile(input, directory.resolve("recipients.report")));
+  }
+
+  @Test
+  public void testHeapShouldNotGrowWithTheFileSize() throws Exception
+  {
+    long small = peakHeapImporting(LARGE_FILE_LINES / 10);
+    long large = peakHeapImporting(LARGE_FILE_LINES);
+    assertTrue(large - small < LEAK_TOLERANCE, "peak live heap %d bytes for %d lines, %d bytes for %d lines"
+      .formatted(small, LARGE_FILE_LINES / 10, large, LARGE_FILE_LINES));
+  }
+
+  private long peakHeapImporting(int lineCount) throws Exception
+  {
+    Path input = directory.resolve("campaign-%d.csv".formatted(lineCount));
+    byte[][] lines = new byte[DISTINCT_LINES][];
+    for (int i = 0; i < DISTINCT_LINES; i++)
+      lines[i] = (i % 10 == 9 ? "not a number,FR,Customer %2$d\n" : "+336152%05d,FR,Customer %d\n")
+        .formatted(i, i).getBytes(StandardCharsets.US_ASCII);
+    try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(input), 1 << 20))
+    {
+      for (int i = 0; i < lineCount; i++)
+        output.write(lines[i % DISTINCT_LINES]);
+    }
+    Path report = directory.resolve("campaign-%d.report".formatted(lineCount));
+    Process importer = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+      "-XX:+UseSerialGC", "-Xms" + MAX_HEAP, "-Xmx" + MAX_HEAP, "-Xmn" + YOUNG_HEAP, "-cp",
+      System.getProperty("java.class.path"), BulkImportRunner.class.getName(), input.toString(), report.toString())
+      .redirectError(ProcessBuilder.Redirect.INHERIT)
+      .start();
+    List<String> output;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(importer.getInputStream())))
+    {
+      output = reader.lines().toList();
+    }
+    assertEquals(0, importer.waitFor());
+    assertEquals(List.of(String.valueOf(lineCount), String.valueOf(lineCount / 10 * 9), String.valueOf(lineCount / 10)),
+      output.subList(0, 3));
+    assertEquals(lineCount, Files.size(report));
+    try (FileChannel channel = FileChannel.open(report))
+    {
+      ByteBuffer codes = channel.map(FileChannel.MapMode.READ_ONLY, 0, lineCount);
+      for (int i = 0; i < lineCount; i++)
+        if (i % 10 == 9)
+          assertEquals(FailureReason.UNPARSEABLE_NUMBER, BulkImporter.reasonOf(codes.get(i)));
+        else
+          assertEquals(BulkImporter.ACCEPTED, codes.get(i));
+    }
+    Files.delete(input);
+    Files.delete(report);
+    return Long.parseLong(output.get(3));
+  }
+}
@@ -0,0 +1,98 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCachingPhoneNumberValidator
+{
+  private final AtomicInteger calls = new AtomicInteger();
+  private final Notification notification = new Notification();
+  private final BiFunction<String, String, Result<E164Number>> countingValidator = (number, region) ->
+  {
+    calls.incrementAndGet();
+    return notification.phoneNumberValidator.apply(number, region);
+  };
+
+  @Test
+  public void testCachedResultShouldNotBeRevalidated()
+  {
+    CachingPhoneNumberValidator<Result<E164Number>> validator = new CachingPhoneNumberValidator<>(countingValidator, 100);
+    Result<E164Number> first = validator.apply("+33615229808", "FR");
+    Result<E164Number> second = validator.apply("+33615229808", "FR");
+    assertInstanceOf(Success.class, first);
+    assertSame(first, second);
+    assertEquals(1, calls.get());
+    assertEquals(new CacheStats(1, 1, 0), validator.stats());
+    assertEquals(0.5, validator.stats().hitRate());
+  }
+
+  @Test
+  public void testUnusedCacheShouldReportNoHits()
+  {
+    CachingPhoneNumberValidator<Result<E164Number>> validator = new CachingPhoneNumberValidator<>(countingValidator, 100);
+    assertEquals(0.0, validator.stats().hitRate());
+  }
+
+  @Test
+  public void testRegionShouldBePartOfTheKey()
+  {
+    CachingPhoneNumberValidator<Result<E164Number>> validator = new CachingPhoneNumberValidator<>(countingValidator, 100);
+    validator.apply("0615229808", "FR");
+    validator.apply("0615229808", "DE");
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void testFailuresShouldBeCached()
+  {
+    CachingPhoneNumberValidator<Result<E164Number>> validator = new CachingPhoneNumberValidator<>(countingValidator, 100);
+    assertInstanceOf(Failure.class, validator.apply(null, "FR"));
+    assertInstanceOf(Failure.class, validator.apply(null, "FR"));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testSizeShouldBeBounded()
+  {
+    CachingPhoneNumberValidator<Result<E164Number>> validator = new CachingPhoneNumberValidator<>(countingValidator, 64);
+    for (int i = 0; i < 1_000; i++)
+      validator.apply("+336152%05d".formatted(i), "FR");
+    assertTrue(validator.size() <= 64);
+    assertEquals(1_000 - validator.size(), validator.stats().evictions());
+  }
+
+  @Test
+  public void testFrequentEntryShouldSurviveScan()
+  {
+    CachingPhoneNumberValidator<Result<E164Number>> validator = new CachingPhoneNumberValidator<>(countingValidator, 10);
+    validator.apply("+33615229808", "FR");
+    validator.apply("+33615229808", "FR");
+    for (int i = 0; i < 100; i++)
+      validator.apply("+336152%05d".formatted(i), "FR");
+    calls.set(0);
+    validator.apply("+33615229808", "FR");
+    assertEquals(0, calls.get());
+  }
+
+  @Test
+  public void testEntryShouldExpire()
+  {
+    AtomicLong ticker = new AtomicLong();
+    CachingPhoneNumberValidator<Result<E164Number>> validator =
+      new CachingPhoneNumberValidator<>(countingValidator, 100, Duration.ofSeconds(10), ticker::get);
+    validator.apply("+33615229808", "FR");
+    ticker.addAndGet(Duration.ofSeconds(9).toNanos());
+    validator.apply("+33615229808", "FR");
+    assertEquals(1, calls.get());
+    ticker.addAndGet(Duration.ofSeconds(1).toNanos());
+    validator.apply("+33615229808", "FR");
+    assertEquals(2, calls.get());
+    assertEquals(1, validator.stats().evictions());
+  }
+}
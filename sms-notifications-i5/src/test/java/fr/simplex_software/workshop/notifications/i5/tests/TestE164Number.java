@@ -0,0 +1,38 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import com.google.i18n.phonenumbers.*;
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestE164Number
+{
+  @Test
+  public void testExampleNumbersShouldMatchE164Format()
+  {
+    PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+    for (String region : phoneNumberUtil.getSupportedRegions())
+      for (PhoneNumberUtil.PhoneNumberType type : PhoneNumberUtil.PhoneNumberType.values())
+      {
+        Phonenumber.PhoneNumber example = phoneNumberUtil.getExampleNumberForType(region, type);
+        if (example != null)
+          assertEquals(phoneNumberUtil.format(example, PhoneNumberUtil.PhoneNumberFormat.E164),
+            E164Number.of(example, region).toString(), region + " " + type);
+      }
+  }
+
+  @Test
+  public void testItalianLeadingZeroShouldBeKept() throws NumberParseException
+  {
+    Phonenumber.PhoneNumber number = PhoneNumberUtil.getInstance().parse("06 6982 0000", "IT");
+    assertEquals(new E164Number(390669820000L, "IT"), E164Number.of(number, "IT"));
+  }
+
+  @Test
+  public void testInvalidValueShouldBeRejected()
+  {
+    assertThrows(IllegalArgumentException.class, () -> new E164Number(0, "FR"));
+    assertThrows(NullPointerException.class, () -> new E164Number(33615229808L, null));
+  }
+}
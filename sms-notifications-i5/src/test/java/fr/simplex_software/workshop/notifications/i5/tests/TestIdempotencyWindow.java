@@ -0,0 +1,137 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestIdempotencyWindow
+{
+  private static final E164Number FR = new E164Number(33615229808L, "FR");
+
+  private final AtomicLong now = new AtomicLong(-Duration.ofDays(1).toNanos());
+
+  @Test
+  public void testDuplicatesShouldBeSuppressedWithinTheWindow()
+  {
+    IdempotencyWindow window = new IdempotencyWindow(Duration.ofMinutes(10), now::get);
+    assertInstanceOf(Success.class, window.check(FR, "Your code is 1234"));
+    Failure<E164Number> duplicate = assertInstanceOf(Failure.class, window.check(FR, "Your code is 1234"));
+    assertEquals("### Duplicate SMS to +33615229808 suppressed", duplicate.getMessage());
+    assertInstanceOf(Success.class, window.check(FR, "Your code is 1235"));
+    assertInstanceOf(Success.class, window.check(new E164Number(33615229809L, "FR"), "Your code is 1234"));
+    now.addAndGet(Duration.ofMinutes(9).toNanos());
+    assertInstanceOf(Failure.class, window.check(FR, "Your code is 1234"));
+  }
+
+  @Test
+  public void testKeysShouldExpireAfterTheWindow()
+  {
+    IdempotencyWindow window = new IdempotencyWindow(Duration.ofMinutes(10), now::get);
+    assertInstanceOf(Success.class, window.check(FR, "hello"));
+    now.addAndGet(Duration.ofMinutes(10).toNanos() - 1);
+    assertInstanceOf(Failure.class, window.check(FR, "hello"));
+    now.incrementAndGet();
+    assertInstanceOf(Success.class, window.check(FR, "hello"));
+    assertInstanceOf(Failure.class, window.check(FR, "hello"));
+  }
+
+  @Test
+  public void testMemoryShouldStayBoundedByTheWindow()
+  {
+    IdempotencyWindow window = new IdempotencyWindow(Duration.ofMinutes(10), now::get);
+    for (int minute = 0; minute < 60; minute++)
+    {
+      for (int i = 0; i < 1_000; i++)
+        window.check(new E164Number(33600000000L + minute * 1_000L + i, "FR"), "hello");
+      now.addAndGet(Duration.ofMinutes(1).toNanos());
+    }
+    int trackedKeys = window.stats().trackedKeys();
+    assertTrue(trackedKeys >= 10_000 && trackedKeys < 30_000, "%d keys".formatted(trackedKeys));
+  }
+
+  @Test
+  public void testStatsShouldExposeTheDuplicateRate()
+  {
+    IdempotencyWindow window = new IdempotencyWindow(Duration.ofMinutes(10));
+    for (int i = 0; i < 3; i++)
+      window.check(FR, "hello");
+    window.check(FR, "bye");
+    IdempotencyStats stats = window.stats();
+    assertEquals(4, stats.checked());
+    assertEquals(2, stats.duplicates());
+    assertEquals(0.5, stats.duplicateRate());
+    assertEquals(2, stats.trackedKeys());
+  }
+
+  @Test
+  public void testEquivalentInputsShouldBeSentOnce()
+  {
+    IdempotencyWindow window = new IdempotencyWindow(Duration.ofMinutes(10));
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ZERO);
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      Notification notification = new Notification(smsService, new Blocklist().andThen(window));
+      assertInstanceOf(Success.class, notification.sendNotificationAsync("+33 6 15 22 98 08", "FR", "hello").join());
+      assertInstanceOf(Failure.class, notification.sendNotificationAsync("06.15.22.98.08", "FR", "hello").join());
+      assertInstanceOf(Success.class, notification.sendNotificationAsync("06.15.22.98.08", "FR", "bye").join());
+    }
+    assertEquals(2, gateway.sent());
+  }
+
+  @Test
+  public void testConcurrentDuplicatesShouldPassOnce() throws InterruptedException
+  {
+    IdempotencyWindow window = new IdempotencyWindow(Duration.ofMinutes(10));
+    AtomicInteger passed = new AtomicInteger();
+    try (ExecutorService executor = Executors.newFixedThreadPool(8))
+    {
+      for (int i = 0; i < 8; i++)
+        executor.execute(() ->
+        {
+          for (int n = 0; n < 1_000; n++)
+            if (window.check(new E164Number(33600000000L + n, "FR"), "hello") instanceof Success)
+              passed.incrementAndGet();
+        });
+    }
+    assertEquals(1_000, passed.get());
+    assertEquals(7_000, window.stats().duplicates());
+  }
+
+  @Test
+  public void testKeyShouldBeReleasedWhenALaterGuardRejects()
+  {
+    IdempotencyWindow window = new IdempotencyWindow(Duration.ofMinutes(10), now::get);
+    SendGuard rejecting = (phoneNumber, message) -> new Failure<>(FailureReason.RATE_LIMITED, "### Limited");
+    assertInstanceOf(Failure.class, window.andThen(rejecting).check(FR, "hello"));
+    assertInstanceOf(Success.class, window.check(FR, "hello"));
+    assertInstanceOf(Failure.class, window.check(FR, "hello"));
+  }
+
+  @Test
+  public void testKeyShouldBeReleasedWhenTheDeliveryFails()
+  {
+    IdempotencyWindow window = new IdempotencyWindow(Duration.ofMinutes(10));
+    AtomicInteger attempts = new AtomicInteger();
+    SmsGateway gateway = (phoneNumber, message) -> attempts.incrementAndGet() % 2 == 1
+      ? new Failure<>(FailureReason.GATEWAY_ERROR, "### Carrier down")
+      : new Success<>(phoneNumber.toString());
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      Notification notification = new Notification(smsService, new Blocklist().andThen(window));
+      assertInstanceOf(Failure.class, notification.sendNotificationAsync("0615229808", "FR", "hello").join());
+      assertInstanceOf(Success.class, notification.sendNotificationAsync("0615229808", "FR", "hello").join());
+      assertEquals(FailureReason.DUPLICATE, assertInstanceOf(Failure.class,
+        notification.sendNotificationAsync("0615229808", "FR", "hello").join()).reason());
+      notification.sendNotification("0615229809", "FR", "hello");
+      notification.sendNotification("0615229809", "FR", "hello");
+      notification.sendNotification("0615229809", "FR", "hello");
+    }
+    assertEquals(4, attempts.get());
+  }
+}
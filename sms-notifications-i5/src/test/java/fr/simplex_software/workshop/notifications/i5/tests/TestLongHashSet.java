@@ -0,0 +1,79 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLongHashSet
+{
+  @Test
+  public void testAddRemoveContains()
+  {
+    LongHashSet set = new LongHashSet();
+    assertTrue(set.add(33615229808L));
+    assertFalse(set.add(33615229808L));
+    assertTrue(set.contains(33615229808L));
+    assertFalse(set.contains(33615229809L));
+    assertTrue(set.remove(33615229808L));
+    assertFalse(set.remove(33615229808L));
+    assertFalse(set.contains(33615229808L));
+    assertEquals(0, set.size());
+    assertThrows(IllegalArgumentException.class, () -> set.add(0));
+    assertThrows(IllegalArgumentException.class, () -> set.contains(-1));
+  }
+
+  @Test
+  public void testShouldAgreeWithHashSet()
+  {
+    LongHashSet set = new LongHashSet();
+    Set<Long> expected = new HashSet<>();
+    Random random = new Random(3);
+    for (int i = 0; i < 500_000; i++)
+    {
+      long value = 1 + random.nextInt(50_000);
+      if (random.nextInt(3) == 0)
+        assertEquals(expected.remove(value), set.remove(value));
+      else
+        assertEquals(expected.add(value), set.add(value));
+    }
+    assertEquals(expected.size(), set.size());
+    for (long value = 1; value <= 50_000; value++)
+      assertEquals(expected.contains(value), set.contains(value));
+    assertTrue(set.capacity() <= 4 * Integer.highestOneBit(expected.size() * 2), "capacity " + set.capacity());
+  }
+
+  @Test
+  public void testReadsShouldNotMissStableEntriesDuringUpdates() throws InterruptedException
+  {
+    LongHashSet set = new LongHashSet();
+    for (long value = 1; value <= 10_000; value++)
+      set.add(value * 2);
+    AtomicBoolean running = new AtomicBoolean(true);
+    Thread writer = Thread.ofPlatform().start(() ->
+    {
+      for (int round = 0; running.get() && round < 200; round++)
+      {
+        for (long value = 1; value <= 20_000; value++)
+          set.add(value * 2 + 1);
+        for (long value = 1; value <= 20_000; value++)
+          set.remove(value * 2 + 1);
+      }
+    });
+    try
+    {
+      for (int round = 0; round < 200 && writer.isAlive(); round++)
+        for (long value = 1; value <= 10_000; value++)
+          assertTrue(set.contains(value * 2), "missed " + value * 2);
+    }
+    finally
+    {
+      running.set(false);
+      writer.join();
+    }
+    assertEquals(10_000, set.size());
+  }
+}
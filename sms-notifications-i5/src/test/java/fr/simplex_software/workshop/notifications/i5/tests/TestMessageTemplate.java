@@ -0,0 +1,72 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMessageTemplate
+{
+  @Test
+  public void testTemplateShouldRenderSlotsInOrder()
+  {
+    MessageTemplate template = MessageTemplate.compile("Hello {name}, your order {order} ships on {date}.");
+    assertEquals(List.of("name", "order", "date"), template.names());
+    assertEquals("Hello Ann, your order 42 ships on 2024-05-01.",
+      template.render("Ann", 42, LocalDate.of(2024, 5, 1)));
+  }
+
+  @Test
+  public void testRepeatedSlotsShouldShareAValue()
+  {
+    MessageTemplate template = MessageTemplate.compile("{code} is your code. Never share {code} with anyone, { name }.");
+    assertEquals(List.of("code", "name"), template.names());
+    assertEquals("1234 is your code. Never share 1234 with anyone, Bob.", template.render("1234", "Bob"));
+  }
+
+  @Test
+  public void testBracesShouldBeEscapedByDoubling()
+  {
+    MessageTemplate template = MessageTemplate.compile("{{literal}} {value} }}");
+    assertEquals("{literal} 1 }", template.render(1));
+    assertEquals("No slots", MessageTemplate.compile("No slots").render());
+  }
+
+  @Test
+  public void testRenderToShouldAppendToTheBuilder()
+  {
+    MessageTemplate template = MessageTemplate.compile("SMS sent to {to}");
+    StringBuilder out = new StringBuilder("> ");
+    template.renderTo(out, new E164Number(33615229808L, "FR"));
+    assertEquals("> SMS sent to +33615229808", out.toString());
+  }
+
+  @Test
+  public void testInvalidTemplatesShouldBeRejected()
+  {
+    assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("Hello {name"));
+    assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("Hello {}"));
+    assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("Hello {a{b}"));
+    assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("Hello }"));
+    MessageTemplate template = MessageTemplate.compile("Hello {name}");
+    assertThrows(IllegalArgumentException.class, () -> template.render());
+    assertThrows(IllegalArgumentException.class, () -> template.render("a", "b"));
+  }
+
+  @Test
+  public void testNotificationShouldSendTheRenderedTemplate()
+  {
+    RecordingSmsGateway gateway = new RecordingSmsGateway();
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      Notification notification = new Notification(smsService);
+      MessageTemplate template = MessageTemplate.compile("Your code is {code}");
+      assertInstanceOf(Success.class, notification.sendNotificationAsync("0615229808", "FR", template, 1234).join());
+    }
+    assertEquals(List.of(new SmsMessage(new E164Number(33615229808L, "FR"), "Your code is 1234")),
+      gateway.batches().get(0).messages());
+  }
+}
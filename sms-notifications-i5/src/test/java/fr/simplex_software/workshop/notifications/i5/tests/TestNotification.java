@@ -3,6 +3,12 @@ package fr.simplex_software.workshop.notifications.i5.tests;
 import fr.simplex_software.workshop.notifications.i5.*;
 import org.junit.jupiter.api.Test;
 
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.util.logging.*;
+import java.util.stream.*;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class TestNotification
@@ -11,7 +17,7 @@ class TestNotification
   void testPhoneNumberValidatorShouldSucceed()
   {
     Notification notification = new Notification();
-    Result<String> result = notification.phoneNumberValidator.apply("+33123456789", "FR");
+    Result<E164Number> result = notification.phoneNumberValidator.apply("+33123456789", "FR");
     assertInstanceOf(Success.class, result);
   }
 
@@ -19,7 +25,7 @@ class TestNotification
   void testPhoneNumberValidatorShouldFailNullNumber()
   {
     Notification notification = new Notification();
-    Result<String> result = notification.phoneNumberValidator.apply(null, "FR");
+    Result<E164Number> result = notification.phoneNumberValidator.apply(null, "FR");
     assertInstanceOf(Failure.class, result);
   }
 
@@ -27,7 +33,185 @@ class TestNotification
   void testPhoneNumberValidatorShouldFailEmptyNumber()
   {
     Notification notification = new Notification();
-    Result<String> result = notification.phoneNumberValidator.apply("", "FR");
+    Result<E164Number> result = notification.phoneNumberValidator.apply("", "FR");
     assertInstanceOf(Failure.class, result);
   }
-}
\ No newline at end of file
+
+  @Test
+  void testPhoneNumberValidatorShouldFailUnparseableNumber()
+  {
+    Notification notification = new Notification();
+    assertInstanceOf(Failure.class, notification.phoneNumberValidator.apply("not a phone number", "FR"));
+    assertInstanceOf(Failure.class, notification.phoneNumberValidator.apply("ab12cd", "FR"));
+    assertInstanceOf(Failure.class, notification.phoneNumberValidator.apply("+999123456", "FR"));
+    assertInstanceOf(Failure.class, notification.phoneNumberValidator.apply("0615229808", null));
+  }
+
+  @Test
+  void testEquivalentNumbersShouldBeNormalized()
+  {
+    Notification notification = new Notification();
+    Result<E164Number> international = notification.phoneNumberValidator.apply("+33 6 15 22 98 08", "DE");
+    Result<E164Number> national = notification.phoneNumberValidator.apply("06.15.22.98.08", "FR");
+    assertEquals(new E164Number(33615229808L, "FR"), international.orElse(null));
+    assertEquals(international.orElse(null), national.orElse(null));
+    assertEquals("+33615229808", international.orElse(null).toString());
+  }
+
+  @Test
+  void testConstantFailuresShouldBeShared()
+  {
+    Notification notification = new Notification();
+    assertSame(notification.phoneNumberValidator.apply(null, "FR"), notification.phoneNumberValidator.apply(null, "DE"));
+    assertSame(notification.phoneNumberValidator.apply("", "FR"), new Notification().phoneNumberValidator.apply("", "FR"));
+  }
+
+  @Test
+  void testConditionShouldSelectFirstMatch()
+  {
+    Result<String> result = Condition.select(
+      Condition.when(() -> new Success<>("default")),
+      Condition.when(() -> false, () -> new Failure<>("first")),
+      Condition.when(() -> true, () -> new Failure<>("second")));
+    StringBuilder message = new StringBuilder();
+    result.ifSuccess(value -> fail(value), message::append);
+    assertEquals("second", message.toString());
+  }
+
+  @Test
+  void testAsyncRejectionShouldNotBeRenderedWhenLoggingIsOff()
+  {
+    AtomicInteger rendered = new AtomicInteger();
+    Object reason = new Object()
+    {
+      @Override
+      public String toString()
+      {
+        rendered.incrementAndGet();
+        return "blocked";
+      }
+    };
+    MessageTemplate template = MessageTemplate.compile("### The phone number {number} is {reason}");
+    SendGuard guard = (phoneNumber, message) -> new Failure<>(FailureReason.OPTED_OUT, template, phoneNumber, reason);
+    Logger logger = Logger.getLogger(Notification.class.getName());
+    logger.setLevel(Level.WARNING);
+    try (SmsService smsService = new SmsService(new RecordingSmsGateway(), 1))
+    {
+      Result<String> result = new Notification(smsService, guard).sendNotificationAsync("0615229808", "FR", "Salut !")
+        .join();
+      assertEquals(0, rendered.get());
+      assertEquals("### The phone number +33615229808 is blocked", ((Failure<String>) result).getMessage());
+      assertEquals(1, rendered.get());
+    }
+    finally
+    {
+      logger.setLevel(null);
+    }
+  }
+
+  @Test
+  void testErrorShouldOnlyBeLoggedWhenEnabled()
+  {
+    Logger logger = Logger.getLogger(Notification.class.getName());
+    List<String> messages = new ArrayList<>();
+    Handler handler = new Handler()
+    {
+      @Override
+      public void publish(LogRecord record)
+      {
+        messages.add(record.getMessage());
+      }
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+    };
+    logger.addHandler(handler);
+    try
+    {
+      logger.setLevel(Level.WARNING);
+      new Notification().sendNotification(null, "FR", "Test message");
+      assertTrue(messages.isEmpty());
+      logger.setLevel(Level.ALL);
+      new Notification().sendNotification(null, "FR", "Test message");
+      assertEquals(List.of("### Error: ### The phone number cannot be null."), messages);
+    }
+    finally
+    {
+      logger.removeHandler(handler);
+      logger.setLevel(null);
+    }
+  }
+
+  @Test
+  void testWarmUpShouldReportLoadedRegions()
+  {
+    WarmupReport report = Notification.warmUp(List.of("FR", "DE", "GB", "US", "XX"));
+    assertEquals(Set.of("FR", "DE", "GB", "US"), report.regions().keySet());
+    assertEquals(Set.of("XX"), report.unsupportedRegions());
+    assertFalse(report.isComplete());
+    assertFalse(report.elapsed().isNegative());
+  }
+
+  @Test
+  void testValidateAllShouldKeepInputOrder()
+  {
+    Notification notification = new Notification();
+    List<Result<E164Number>> results = notification.validateAll(List.of(
+      new Recipient("+33123456789", "FR"),
+      new Recipient(null, "FR"),
+      new Recipient("", "FR"),
+      new Recipient("+33615229808", "FR")));
+    assertEquals(4, results.size());
+    assertInstanceOf(Success.class, results.get(0));
+    assertInstanceOf(Failure.class, results.get(1));
+    assertInstanceOf(Failure.class, results.get(2));
+    assertInstanceOf(Success.class, results.get(3));
+  }
+
+  @Test
+  void testValidateAllShouldValidateDuplicatesOnce()
+  {
+    Notification notification = new Notification();
+    AtomicInteger calls = new AtomicInteger();
+    BiFunction<String, String, Result<E164Number>> validator = notification.phoneNumberValidator;
+    notification.phoneNumberValidator = (number, region) ->
+    {
+      calls.incrementAndGet();
+      return validator.apply(number, region);
+    };
+    List<Result<E164Number>> results = notification.validateAll(Stream.of(
+      new Recipient("+33615229808", "FR"),
+      new Recipient("+33123456789", "FR"),
+      new Recipient("+33615229808", "FR")));
+    assertEquals(2, calls.get());
+    assertSame(results.get(0), results.get(2));
+  }
+
+  @Test
+  void testValidateAllShouldSplitLargeBatches()
+  {
+    Notification notification = new Notification();
+    List<Recipient> recipients = IntStream.range(0, 20_000)
+      .mapToObj(i -> new Recipient(i % 3 == 0 ? "+336152%05d123".formatted(i) : "+336152%05d".formatted(i), "FR"))
+      .toList();
+    List<Result<E164Number>> results = notification.validateAll(recipients);
+    assertEquals(recipients.size(), results.size());
+    for (int i = 0; i < recipients.size(); i++)
+      assertEquals(i % 3 == 0, results.get(i) instanceof Failure);
+  }
+
+  @Test
+  void testSendNotificationShouldSendTheCallersMessage()
+  {
+    RecordingSmsGateway gateway = new RecordingSmsGateway();
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      new Notification(smsService).sendNotification("06.15.22.98.08", "FR", "Your code is 1234");
+    }
+    assertEquals(List.of(new SmsMessage(new E164Number(33615229808L, "FR"), "Your code is 1234")),
+      gateway.batches().get(0).messages());
+  }
+}
@@ -0,0 +1,131 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNotificationMetrics
+{
+  @Test
+  public void testHistogramPercentilesShouldBeWithinTheBucketPrecision()
+  {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Random random = new Random(21);
+    long[] values = new long[100_000];
+    for (int i = 0; i < values.length; i++)
+      histogram.record(values[i] = (long) Math.exp(random.nextDouble() * 25));
+    Arrays.sort(values);
+    LatencySnapshot snapshot = histogram.snapshot();
+    assertEquals(values.length, snapshot.count());
+    assertEquals(values[values.length - 1], snapshot.maxNanos());
+    for (double percentile : new double[]{1, 50, 90, 99, 99.9, 100})
+    {
+      long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+      long estimate = snapshot.percentile(percentile).toNanos();
+      assertTrue(estimate >= exact && estimate <= exact + exact / 32 + 1,
+        "p%s: %d vs %d".formatted(percentile, estimate, exact));
+    }
+    assertEquals(Duration.ZERO, new LatencyHistogram().snapshot().percentile(99));
+  }
+
+  @Test
+  public void testHistogramShouldAcceptTheWholeRange()
+  {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(0);
+    histogram.record(Long.MAX_VALUE);
+    LatencySnapshot snapshot = histogram.snapshot();
+    assertEquals(3, snapshot.count());
+    assertEquals(Duration.ZERO, snapshot.percentile(50));
+    assertEquals(Duration.ofNanos(Long.MAX_VALUE), snapshot.percentile(100));
+  }
+
+  @Test
+  public void testPipelineStagesShouldCountOutcomesPerReason()
+  {
+    Blocklist blocklist = new Blocklist();
+    blocklist.add(new E164Number(33615229809L, "FR"));
+    try (SmsService smsService = new SmsService(new FakeSmsGateway(Duration.ZERO), 10, RetryPolicy.none(),
+      (message, attempts, lastError) -> {}, new NotificationMetrics(1)))
+    {
+      Notification notification = new Notification(smsService, blocklist);
+      notification.sendNotificationAsync("0615229808", "FR", "hello").join();
+      notification.sendNotificationAsync("0615229809", "FR", "hello").join();
+      notification.sendNotificationAsync("", "FR", "hello").join();
+      notification.sendNotificationAsync(null, "FR", "hello").join();
+      notification.sendNotificationAsync("not a number", "FR", "hello").join();
+      notification.sendNotificationAsync("+4930123456", "FR", "hello").join();
+      notification.sendNotificationAsync("0615229808", "US", "hello").join();
+      Map<PipelineStage, StageMetrics> metrics = smsService.metrics().snapshot();
+      StageMetrics validation = metrics.get(PipelineStage.VALIDATION);
+      assertEquals(3, validation.successes());
+      assertEquals(Map.of(FailureReason.EMPTY_NUMBER, 1L, FailureReason.NULL_NUMBER, 1L,
+        FailureReason.UNPARSEABLE_NUMBER, 1L, FailureReason.WRONG_REGION, 1L), validation.failures());
+      assertEquals(7, validation.latency().count());
+      StageMetrics guard = metrics.get(PipelineStage.GUARD);
+      assertEquals(2, guard.successes());
+      assertEquals(Map.of(FailureReason.OPTED_OUT, 1L), guard.failures());
+      assertEquals(2, metrics.get(PipelineStage.SEND).successes());
+      assertEquals(2, metrics.get(PipelineStage.DELIVERY).latency().count());
+    }
+  }
+
+  @Test
+  public void testRetriesShouldBeCountedPerAttempt()
+  {
+    SmsGateway flaky = (phoneNumber, message) -> new TransientFailure<>("### Gateway busy");
+    RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5), 0);
+    try (SmsService smsService = new SmsService(flaky, 10, policy, (message, attempts, lastError) -> {},
+      new NotificationMetrics(1)))
+    {
+      Result<String> result = smsService.sendAsync(new E164Number(33615229808L, "FR"), "hello").join();
+      assertEquals(FailureReason.GAVE_UP, assertInstanceOf(Failure.class, result).reason());
+      Map<PipelineStage, StageMetrics> metrics = smsService.metrics().snapshot();
+      assertEquals(Map.of(FailureReason.TRANSIENT, 3L), metrics.get(PipelineStage.SEND).failures());
+      assertEquals(Map.of(FailureReason.GAVE_UP, 1L), metrics.get(PipelineStage.DELIVERY).failures());
+      assertTrue(metrics.get(PipelineStage.DELIVERY).latency().percentile(50).compareTo(Duration.ofMillis(2)) >= 0);
+    }
+  }
+
+  @Test
+  public void testSnapshotsShouldNotBlockConcurrentRecording() throws InterruptedException
+  {
+    NotificationMetrics metrics = new NotificationMetrics(1);
+    try (ExecutorService executor = Executors.newFixedThreadPool(4))
+    {
+      for (int i = 0; i < 4; i++)
+        executor.execute(() ->
+        {
+          for (int n = 0; n < 100_000; n++)
+            metrics.record(PipelineStage.SEND, metrics.start(), n % 10 == 0
+              ? new Failure<>(FailureReason.GATEWAY_ERROR, "### Error") : new Success<>("ok"));
+        });
+      for (int i = 0; i < 100; i++)
+        assertTrue(metrics.snapshot(PipelineStage.SEND).latency().count() <= 400_000);
+    }
+    StageMetrics send = metrics.snapshot(PipelineStage.SEND);
+    assertEquals(360_000, send.successes());
+    assertEquals(40_000, send.failureCount());
+    assertEquals(400_000, send.latency().count());
+    StageMetrics disabled = NotificationMetrics.disabled().snapshot(PipelineStage.SEND);
+    assertEquals(0, disabled.successes());
+  }
+
+  @Test
+  public void testLatencyShouldBeSampledButOutcomesCounted()
+  {
+    NotificationMetrics metrics = new NotificationMetrics(16);
+    for (int n = 0; n < 160_000; n++)
+      metrics.record(PipelineStage.VALIDATION, metrics.start(), new Success<>("ok"));
+    StageMetrics validation = metrics.snapshot(PipelineStage.VALIDATION);
+    assertEquals(160_000, validation.successes());
+    assertEquals(10_000, validation.latency().count(), 1_000);
+    assertThrows(IllegalArgumentException.class, () -> new NotificationMetrics(3));
+  }
+}
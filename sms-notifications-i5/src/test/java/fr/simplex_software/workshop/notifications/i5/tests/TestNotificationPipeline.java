@@ -0,0 +1,280 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNotificationPipeline
+{
+  @Test
+  public void testSlowGatewayShouldBoundTheItemsInFlight()
+  {
+    int buffer = 32;
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ofMillis(1));
+    try (SmsService smsService = new SmsService(gateway, 1_000))
+    {
+      NotificationPipeline pipeline = new Notification(smsService).pipeline(2, buffer);
+      GeneratingPublisher producer = new GeneratingPublisher(2_000, TestNotificationPipeline::request);
+      AtomicLong maxOutstanding = new AtomicLong();
+      Thread sampler = Thread.ofPlatform().daemon().start(() ->
+      {
+        while (!pipeline.completion().isDone())
+        {
+          maxOutstanding.accumulateAndGet(producer.emitted() - gateway.sent(), Math::max);
+          Thread.onSpinWait();
+        }
+      });
+      producer.subscribe(pipeline);
+      pipeline.completion().orTimeout(60, TimeUnit.SECONDS).join();
+      sampler.interrupt();
+      assertEquals(2_000, gateway.sent());
+      assertTrue(producer.maxDemand() <= buffer, "demand %d".formatted(producer.maxDemand()));
+      assertTrue(maxOutstanding.get() <= buffer, "%d outstanding".formatted(maxOutstanding.get()));
+      assertTrue(gateway.maxInFlight() <= buffer, "%d in flight".formatted(gateway.maxInFlight()));
+      assertEquals(0, pipeline.inFlight());
+    }
+  }
+
+  @Test
+  public void testBlockingProducerShouldBeThrottledByTheGateway() throws InterruptedException
+  {
+    int buffer = 16;
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ofMillis(1));
+    try (SmsService smsService = new SmsService(gateway, 1_000);
+         SubmissionPublisher<SendRequest> producer = new SubmissionPublisher<>(ForkJoinPool.commonPool(), buffer))
+    {
+      NotificationPipeline pipeline = new Notification(smsService).pipeline(1, buffer);
+      producer.subscribe(pipeline);
+      int maxLag = 0;
+      for (int i = 0; i < 500; i++)
+      {
+        producer.submit(request(i));
+        maxLag = Math.max(maxLag, i + 1 - (int) gateway.sent());
+      }
+      producer.close();
+      pipeline.completion().orTimeout(60, TimeUnit.SECONDS).join();
+      assertEquals(500, gateway.sent());
+      assertTrue(maxLag <= 3 * buffer + 1, "producer ran %d items ahead".formatted(maxLag));
+    }
+  }
+
+  @Test
+  public void testFailuresShouldBePublishedOnTheirOwnStream()
+  {
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ZERO);
+    Blocklist blocklist = new Blocklist();
+    blocklist.add(new E164Number(33615229809L, "FR"));
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      NotificationPipeline pipeline = new Notification(smsService, blocklist).pipeline(2, 8);
+      List<FailureReason> reasons = new CopyOnWriteArrayList<>();
+      CompletableFuture<Void> failuresDone = new CompletableFuture<>();
+      pipeline.failures().subscribe(new Flow.Subscriber<>()
+      {
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+          subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Result<String> item)
+        {
+          reasons.add(((Failure<String>) item).reason());
+        }
+
+        @Override
+        public void onError(Throwable throwable)
+        {
+          failuresDone.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete()
+        {
+          failuresDone.complete(null);
+        }
+      });
+      List<SendRequest> requests = List.of(
+        new SendRequest(new Recipient("0615229808", "FR"), "hello"),
+        new SendRequest(new Recipient("0615229809", "FR"), "hello"),
+        new SendRequest(new Recipient("not a number", "FR"), "hello"),
+        new SendRequest(new Recipient("", "FR"), "hello"),
+        new SendRequest(new Recipient("0615229810", "FR"), "a".repeat(153 * 256)));
+      GeneratingPublisher producer = new GeneratingPublisher(requests.size(), requests::get);
+      producer.subscribe(pipeline);
+      pipeline.completion().orTimeout(10, TimeUnit.SECONDS).join();
+      failuresDone.orTimeout(10, TimeUnit.SECONDS).join();
+      assertEquals(Set.of(FailureReason.OPTED_OUT, FailureReason.UNPARSEABLE_NUMBER, FailureReason.EMPTY_NUMBER,
+        FailureReason.MESSAGE_TOO_LONG), Set.copyOf(reasons));
+      assertEquals(4, reasons.size());
+      assertEquals(1, gateway.sent());
+    }
+  }
+
+  @Test
+  public void testValidationShouldRunOnTheConfiguredWorkers()
+  {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    SendGuard recording = (phoneNumber, message) ->
+    {
+      threads.add(Thread.currentThread().getName());
+      return new Success<>(phoneNumber);
+    };
+    try (SmsService smsService = new SmsService(new FakeSmsGateway(Duration.ZERO), 10))
+    {
+      NotificationPipeline pipeline = new Notification(smsService, recording).pipeline(3, 64);
+      new GeneratingPublisher(3_000, TestNotificationPipeline::request).subscribe(pipeline);
+      pipeline.completion().orTimeout(30, TimeUnit.SECONDS).join();
+    }
+    assertTrue(threads.size() > 1 && threads.size() <= 3, threads.toString());
+    assertTrue(threads.stream().allMatch(name -> name.startsWith("sms-validation-")), threads.toString());
+  }
+
+  @Test
+  public void testUpstreamErrorShouldFailTheCompletion()
+  {
+    try (SmsService smsService = new SmsService(new FakeSmsGateway(Duration.ZERO), 10))
+    {
+      NotificationPipeline pipeline = new Notification(smsService).pipeline(1, 4);
+      pipeline.onSubscribe(new Flow.Subscription()
+      {
+        @Override
+        public void request(long n)
+        {
+        }
+
+        @Override
+        public void cancel()
+        {
+        }
+      });
+      pipeline.onError(new IllegalStateException("### Broken producer"));
+      CompletionException e = assertThrows(CompletionException.class, () -> pipeline.completion().join());
+      assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+  }
+
+  @Test
+  public void testThrowingStageShouldNotStallTheCompletion()
+  {
+    SendGuard throwing = (phoneNumber, message) ->
+    {
+      throw new IllegalStateException("### Broken guard");
+    };
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ZERO);
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      NotificationPipeline pipeline = new Notification(smsService, throwing).pipeline(2, 8);
+      new GeneratingPublisher(100, TestNotificationPipeline::request).subscribe(pipeline);
+      pipeline.completion().orTimeout(10, TimeUnit.SECONDS).join();
+      assertEquals(0, pipeline.inFlight());
+    }
+    assertEquals(0, gateway.sent());
+  }
+
+  @Test
+  public void testSlowFailureSubscriberShouldNotStallThePipeline()
+  {
+    try (SmsService smsService = new SmsService(new FakeSmsGateway(Duration.ZERO), 10))
+    {
+      NotificationPipeline pipeline = new Notification(smsService).pipeline(1, 4);
+      pipeline.failures().subscribe(new Flow.Subscriber<>()
+      {
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+        }
+
+        @Override
+        public void onNext(Result<String> item)
+        {
+        }
+
+        @Override
+        public void onError(Throwable throwable)
+        {
+        }
+
+        @Override
+        public void onComplete()
+        {
+        }
+      });
+      new GeneratingPublisher(1_000, i -> new SendRequest(new Recipient("not a number", "FR"), "hello"))
+        .subscribe(pipeline);
+      pipeline.completion().orTimeout(10, TimeUnit.SECONDS).join();
+      assertTrue(pipeline.droppedFailures() > 0);
+    }
+  }
+
+  private static SendRequest request(int i)
+  {
+    return new SendRequest(new Recipient("06" + (15_000_000 + i), "FR"), "hello");
+  }
+
+  private static final class GeneratingPublisher implements Flow.Publisher<SendRequest>
+  {
+    private final int count;
+    private final IntFunction<SendRequest> source;
+    private final AtomicLong emitted = new AtomicLong();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicLong maxDemand = new AtomicLong();
+    private final AtomicInteger draining = new AtomicInteger();
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    private GeneratingPublisher(int count, IntFunction<SendRequest> source)
+    {
+      this.count = count;
+      this.source = source;
+    }
+
+    private long emitted()
+    {
+      return emitted.get();
+    }
+
+    private long maxDemand()
+    {
+      return maxDemand.get();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SendRequest> subscriber)
+    {
+      subscriber.onSubscribe(new Flow.Subscription()
+      {
+        @Override
+        public void request(long n)
+        {
+          maxDemand.accumulateAndGet(demand.addAndGet(n), Math::max);
+          if (draining.getAndIncrement() != 0)
+            return;
+          do
+          {
+            while (demand.get() > 0 && emitted.get() < count)
+            {
+              demand.decrementAndGet();
+              subscriber.onNext(source.apply((int) emitted.getAndIncrement()));
+            }
+            if (emitted.get() == count && completed.compareAndSet(false, true))
+              subscriber.onComplete();
+          }
+          while (draining.decrementAndGet() != 0);
+        }
+
+        @Override
+        public void cancel()
+        {
+        }
+      });
+    }
+  }
+}
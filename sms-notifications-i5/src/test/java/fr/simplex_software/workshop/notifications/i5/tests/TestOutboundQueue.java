@@ -0,0 +1,273 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestOutboundQueue
+{
+  private static final Duration TIMEOUT = Duration.ofMillis(10);
+
+  @TempDir
+  Path directory;
+
+  static SmsMessage message(long i)
+  {
+    return new SmsMessage(new E164Number(33_600_000_000L + i, "FR"), "Message " + i);
+  }
+
+  @Test
+  public void testEnqueuedMessagesShouldBePolledInOrder() throws Exception
+  {
+    try (OutboundQueue queue = OutboundQueue.open(directory))
+    {
+      SmsMessage nonGeographic = new SmsMessage(new E164Number(80012345678L, "001"), "Ça marche ✓");
+      queue.enqueue(message(0)).join();
+      assertInstanceOf(Success.class, queue.send(nonGeographic.phoneNumber(), nonGeographic.message()));
+      assertEquals(List.of(message(0), nonGeographic), queue.poll(10, TIMEOUT));
+      assertEquals(List.of(), queue.poll(10, TIMEOUT));
+    }
+  }
+
+  @Test
+  public void testUncommittedMessagesShouldBeReplayedAfterReopen() throws Exception
+  {
+    try (OutboundQueue queue = OutboundQueue.open(directory))
+    {
+      for (int i = 0; i < 100; i++)
+        queue.enqueue(message(i));
+      queue.enqueue(message(100)).join();
+      assertEquals(40, queue.poll(40, TIMEOUT).size());
+      queue.commit();
+      assertEquals(20, queue.poll(20, TIMEOUT).size());
+    }
+    try (OutboundQueue queue = OutboundQueue.open(directory))
+    {
+      List<SmsMessage> replayed = queue.poll(1_000, TIMEOUT);
+      assertEquals(61, replayed.size());
+      assertEquals(message(40), replayed.get(0));
+      assertEquals(message(100), replayed.get(60));
+    }
+  }
+
+  @Test
+  public void testSegmentsShouldRollOverAndBeDeletedOnceConsumed() throws Exception
+  {
+    try (OutboundQueue queue = OutboundQueue.open(directory, 4_096))
+    {
+      List<SmsMessage> messages = new ArrayList<>();
+      for (int i = 0; i < 1_000; i++)
+        messages.add(message(i));
+      assertTrue(queue.sendBatch(messages).stream().allMatch(Result::isSuccess));
+      assertTrue(queue.segmentCount() > 5, "%d segments".formatted(queue.segmentCount()));
+      List<SmsMessage> polled = new ArrayList<>();
+      for (List<SmsMessage> batch = queue.poll(64, TIMEOUT); !batch.isEmpty(); batch = queue.poll(64, TIMEOUT))
+        polled.addAll(batch);
+      assertEquals(messages, polled);
+      queue.commit();
+      assertEquals(1, queue.segmentCount());
+    }
+    try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "*.segment"))
+    {
+      assertEquals(1, countOf(segments));
+    }
+  }
+
+  @Test
+  public void testTornRecordShouldBeDiscardedOnRecovery() throws Exception
+  {
+    long end;
+    try (OutboundQueue queue = OutboundQueue.open(directory))
+    {
+      for (int i = 0; i < 9; i++)
+        queue.enqueue(message(i));
+      queue.enqueue(message(9)).join();
+      end = queue.durableOffset();
+    }
+    try (FileChannel segment = FileChannel.open(directory.resolve("%020d.segment".formatted(0)),
+      StandardOpenOption.WRITE))
+    {
+      segment.write(ByteBuffer.allocate(40).putInt(0, 32).putInt(4, 0xBADC0DE).putLong(8, 42L), end);
+    }
+    try (OutboundQueue queue = OutboundQueue.open(directory))
+    {
+      assertEquals(end, queue.durableOffset());
+      queue.enqueue(message(10)).join();
+    }
+    try (OutboundQueue queue = OutboundQueue.open(directory))
+    {
+      List<SmsMessage> recovered = queue.poll(100, TIMEOUT);
+      assertEquals(11, recovered.size());
+      assertEquals(message(10), recovered.get(10));
+    }
+  }
+
+  @Test
+  public void testEmptyTailSegmentShouldBeReusedOnRecovery() throws Exception
+  {
+    try (OutboundQueue queue = OutboundQueue.open(directory, 4_096))
+    {
+      for (int i = 0; i < 9; i++)
+        queue.enqueue(message(i));
+      queue.enqueue(message(9)).join();
+    }
+    Files.createFile(directory.resolve("%020d.segment".formatted(4_096)));
+    try (OutboundQueue queue = OutboundQueue.open(directory, 4_096))
+    {
+      assertEquals(4_096, queue.durableOffset());
+      queue.enqueue(message(10)).join();
+    }
+    try (OutboundQueue queue = OutboundQueue.open(directory, 4_096))
+    {
+      List<SmsMessage> recovered = queue.poll(100, TIMEOUT);
+      assertEquals(11, recovered.size());
+      assertEquals(message(10), recovered.get(10));
+    }
+  }
+
+  @Test
+  public void testFailedDeliveriesShouldBeDeadLettered() throws Exception
+  {
+    SmsGateway gateway = (phoneNumber, message) -> phoneNumber.value() % 2 == 0
+      ? new Success<>(phoneNumber.toString())
+      : new Failure<>(FailureReason.GATEWAY_ERROR, "### Unknown subscriber " + phoneNumber);
+    List<SmsMessage> deadLetters = new CopyOnWriteArrayList<>();
+    List<SmsMessage> failed = new ArrayList<>();
+    try (OutboundQueue queue = OutboundQueue.open(directory);
+         SmsService consumer = new SmsService(gateway, 10);
+         OutboundDispatcher dispatcher = new OutboundDispatcher(queue, consumer, 16,
+           (message, attempts, error) -> deadLetters.add(message)))
+    {
+      for (int i = 0; i < 100; i++)
+      {
+        queue.enqueue(message(i)).join();
+        if (i % 2 == 1)
+          failed.add(message(i));
+      }
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+      while (deadLetters.size() < failed.size() && System.nanoTime() < deadline)
+        Thread.sleep(10);
+    }
+    assertEquals(Set.copyOf(failed), Set.copyOf(deadLetters));
+  }
+
+  @Test
+  public void testBatchShouldNotBeCommittedWhenTheServiceIsClosed() throws Exception
+  {
+    Logger logger = Logger.getLogger(OutboundDispatcher.class.getName());
+    List<String> errors = new CopyOnWriteArrayList<>();
+    Handler handler = new Handler()
+    {
+      @Override
+      public void publish(LogRecord record)
+      {
+        errors.add(record.getMessage());
+      }
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+    };
+    logger.addHandler(handler);
+    logger.setUseParentHandlers(false);
+    try
+    {
+      try (OutboundQueue queue = OutboundQueue.open(directory))
+      {
+        SmsService consumer = new SmsService(new FakeSmsGateway(Duration.ZERO), 10);
+        consumer.close();
+        try (OutboundDispatcher dispatcher = new OutboundDispatcher(queue, consumer, 16, (message, attempts, error) -> {}))
+        {
+          queue.enqueue(message(1)).join();
+          long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+          while (errors.isEmpty() && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        }
+      }
+      assertEquals(List.of("### Cannot deliver the outbound batch, dispatching stopped"), errors);
+      try (OutboundQueue queue = OutboundQueue.open(directory))
+      {
+        assertEquals(List.of(message(1)), queue.poll(10, TIMEOUT));
+      }
+    }
+    finally
+    {
+      logger.removeHandler(handler);
+      logger.setUseParentHandlers(true);
+    }
+  }
+
+  @Test
+  public void testQueuedNotificationsShouldBeDispatched() throws Exception
+  {
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ofMillis(1));
+    try (OutboundQueue queue = OutboundQueue.open(directory);
+         SmsService producer = new SmsService(queue, 1_000);
+         SmsService consumer = new SmsService(gateway, 100);
+         OutboundDispatcher dispatcher = new OutboundDispatcher(queue, consumer, 256, (message, attempts, error) -> {}))
+    {
+      Notification notification = new Notification(producer);
+      List<CompletableFuture<Result<String>>> deliveries = new ArrayList<>();
+      for (int i = 0; i < 1_000; i++)
+        deliveries.add(notification.sendNotificationAsync("+3361522%04d".formatted(i), "FR", "Message " + i));
+      deliveries.forEach(delivery -> assertInstanceOf(Success.class, delivery.join()));
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+      while (gateway.sent() < 1_000 && System.nanoTime() < deadline)
+        Thread.sleep(10);
+    }
+    assertEquals(1_000, gateway.sent());
+  }
+
+  @Test
+  public void testKilledWriterShouldBeRecovered() throws Exception
+  {
+    Process writer = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+      "-cp", System.getProperty("java.class.path"), OutboundQueueWriter.class.getName(), directory.toString(),
+      Integer.toString(1 << 20))
+      .redirectError(ProcessBuilder.Redirect.INHERIT)
+      .start();
+    long durable = -1;
+    try (BufferedReader output = new BufferedReader(new InputStreamReader(writer.getInputStream())))
+    {
+      for (String line = output.readLine(); line != null && durable < 200_000; line = output.readLine())
+        durable = Long.parseLong(line);
+    }
+    finally
+    {
+      writer.destroyForcibly().waitFor();
+    }
+    assertTrue(durable >= 200_000, "the writer reported %d durable messages".formatted(durable));
+    try (OutboundQueue queue = OutboundQueue.open(directory, 1 << 20))
+    {
+      assertTrue(queue.segmentCount() > 1);
+      long expected = 0;
+      for (List<SmsMessage> batch = queue.poll(4_096, TIMEOUT); !batch.isEmpty(); batch = queue.poll(4_096, TIMEOUT))
+        for (SmsMessage recovered : batch)
+          assertEquals(message(expected++), recovered);
+      assertTrue(expected > durable, "recovered %d messages, %d were durable".formatted(expected, durable));
+      queue.enqueue(message(expected)).join();
+      assertEquals(List.of(message(expected)), queue.poll(10, TIMEOUT));
+    }
+  }
+
+  private static long countOf(DirectoryStream<Path> paths)
+  {
+    long count = 0;
+    for (Path ignored : paths)
+      count++;
+    return count;
+  }
+}
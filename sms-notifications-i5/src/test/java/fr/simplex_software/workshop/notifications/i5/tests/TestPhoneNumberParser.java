@@ -0,0 +1,70 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import com.google.i18n.phonenumbers.*;
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestPhoneNumberParser
+{
+  private static final PhoneNumberParser parser = PhoneNumberParser.getInstance();
+
+  @Test
+  void testParseShouldSucceed()
+  {
+    Result<Phonenumber.PhoneNumber> result = parser.parse("+33615229808", "FR");
+    assertInstanceOf(Success.class, result);
+    assertEquals(33, result.map(Phonenumber.PhoneNumber::getCountryCode).orElse(0));
+    assertEquals(615229808L, result.map(Phonenumber.PhoneNumber::getNationalNumber).orElse(0L));
+  }
+
+  @Test
+  void testParseShouldFailWithoutThrowing()
+  {
+    for (String number : Arrays.asList(null, "", "1", "not a phone number", "ab12cd", "+",
+      "+0615229808", "+999123456", "0".repeat(251)))
+      assertInstanceOf(Failure.class, parser.parse(number, "FR"), String.valueOf(number));
+    assertInstanceOf(Failure.class, parser.parse("0615229808", "XX"));
+    assertInstanceOf(Failure.class, parser.parse("0615229808", null));
+  }
+
+  @Test
+  void testParseableButInvalidNumberShouldBeRejectedForTheRegion()
+  {
+    Failure<Phonenumber.PhoneNumber> failure = (Failure<Phonenumber.PhoneNumber>) parser.parse("+33615229808123", "FR");
+    assertEquals(FailureReason.WRONG_REGION, failure.reason());
+    assertEquals("### The phone number +33615229808123 is not for region FR", failure.getMessage());
+    Result<E164Number> validated = new Notification().phoneNumberValidator.apply("+33615229808123", "FR");
+    assertEquals(FailureReason.WRONG_REGION, ((Failure<E164Number>) validated).reason());
+  }
+
+  @Test
+  void testParseShouldAgreeWithLibphonenumber()
+  {
+    PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+    Random random = new Random(11);
+    String alphabet = "0123456789+-() .abcx";
+    for (int i = 0; i < 50_000; i++)
+    {
+      StringBuilder number = new StringBuilder();
+      for (int length = random.nextInt(20); length > 0; length--)
+        number.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      Result<Phonenumber.PhoneNumber> result = parser.parse(number.toString(), "FR");
+      try
+      {
+        if (phoneNumberUtil.isValidNumber(phoneNumberUtil.parse(number, "FR")))
+          assertInstanceOf(Success.class, result, number.toString());
+        else if (result instanceof Failure<Phonenumber.PhoneNumber> failure)
+          assertEquals(FailureReason.WRONG_REGION, failure.reason(), number.toString());
+      }
+      catch (NumberParseException e)
+      {
+        assertEquals(FailureReason.UNPARSEABLE_NUMBER, ((Failure<Phonenumber.PhoneNumber>) result).reason(),
+          number.toString());
+      }
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import com.google.i18n.phonenumbers.*;
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPhoneNumberPreFilter
+{
+  private static final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+  private static final PhoneNumberPreFilter preFilter = PhoneNumberPreFilter.getInstance();
+  private static final String[] REGIONS = {"FR", "DE", "GB", "US", "IT", "BR", "AR", "RU", "IN", "CN", "JP", "MX",
+    "ZZ", "001", null};
+  private static final String ALPHABET = "0123456789012345678901234567890123456789+++   --..()abxX#,;/";
+
+  @Test
+  public void testObviouslyInvalidNumbersShouldBeRejected()
+  {
+    assertTrue(preFilter.rejects("+33615229808123", "FR"));
+    assertTrue(preFilter.rejects("not a phone number", "FR"));
+    assertTrue(preFilter.rejects("+0615229808", "ZZ"));
+    assertFalse(preFilter.rejects("+0033615229808", "FR"));
+    assertTrue(preFilter.rejects("+0615229808", "FR"));
+    assertTrue(preFilter.rejects("+999123456", "FR"));
+    assertFalse(preFilter.rejects("+336615229808", "FR"));
+    assertTrue(preFilter.rejects("+3361", "FR"));
+    assertTrue(preFilter.rejects("0615229808", "ZZ"));
+    assertTrue(preFilter.rejects("0615229808", null));
+    assertTrue(preFilter.rejects("1".repeat(251), "FR"));
+  }
+
+  @Test
+  public void testParseableButInvalidNumbersShouldBeRejectedForTheirRegion()
+  {
+    assertEquals(FailureReason.WRONG_REGION, preFilter.rejection("+33615229808123", "FR"));
+    assertEquals(FailureReason.WRONG_REGION, preFilter.rejection("+3361", "FR"));
+    assertEquals(FailureReason.UNPARSEABLE_NUMBER, preFilter.rejection("+999123456", "FR"));
+    assertEquals(FailureReason.UNPARSEABLE_NUMBER, preFilter.rejection("+331", "FR"));
+    assertNull(preFilter.rejection("+33615229808", "FR"));
+  }
+
+  @Test
+  public void testValidNumbersShouldNotBeRejected()
+  {
+    assertFalse(preFilter.rejects("+33615229808", "FR"));
+    assertFalse(preFilter.rejects("+33 6 15 22 98 08", null));
+    assertFalse(preFilter.rejects("06 15 22 98 08", "FR"));
+    assertFalse(preFilter.rejects("+33 0615229808", "FR"));
+    assertFalse(preFilter.rejects("1-800-FLOWERS", "US"));
+  }
+
+  @Test
+  public void testExampleNumbersAndMutationsShouldAgreeWithLibphonenumber()
+  {
+    Random random = new Random(42);
+    int checked = 0;
+    for (String region : phoneNumberUtil.getSupportedRegions())
+      for (PhoneNumberUtil.PhoneNumberType type : PhoneNumberUtil.PhoneNumberType.values())
+      {
+        Phonenumber.PhoneNumber example = phoneNumberUtil.getExampleNumberForType(region, type);
+        if (example == null)
+          continue;
+        for (PhoneNumberUtil.PhoneNumberFormat format : PhoneNumberUtil.PhoneNumberFormat.values())
+        {
+          String formatted = phoneNumberUtil.format(example, format);
+          assertFalse(preFilter.rejects(formatted, region), formatted + " / " + region);
+          for (int i = 0; i < 5; i++)
+          {
+            String mutated = mutate(formatted, random);
+            assertConsistent(mutated, region);
+            assertConsistent(mutated, REGIONS[random.nextInt(REGIONS.length)]);
+            checked += 2;
+          }
+        }
+      }
+    assertTrue(checked > 10_000);
+  }
+
+  @Test
+  public void testRandomCorpusShouldAgreeWithLibphonenumber()
+  {
+    Random random = new Random(7);
+    int rejected = 0;
+    for (int i = 0; i < 200_000; i++)
+    {
+      String region = REGIONS[random.nextInt(REGIONS.length)];
+      String number = randomNumber(random);
+      if (assertConsistent(number, region))
+        rejected++;
+    }
+    assertTrue(rejected > 10_000, "only %d rejections".formatted(rejected));
+  }
+
+  private static boolean assertConsistent(String number, String region)
+  {
+    FailureReason rejection = preFilter.rejection(number, region);
+    if (rejection != null)
+    {
+      Phonenumber.PhoneNumber parsed = parse(number, region);
+      assertEquals(parsed == null ? FailureReason.UNPARSEABLE_NUMBER : FailureReason.WRONG_REGION, rejection,
+        "%s / %s".formatted(number, region));
+      assertFalse(parsed != null && phoneNumberUtil.isValidNumber(parsed),
+        "%s / %s rejected but valid".formatted(number, region));
+    }
+    return rejection != null;
+  }
+
+  private static Phonenumber.PhoneNumber parse(String number, String region)
+  {
+    try
+    {
+      return phoneNumberUtil.parse(number, region);
+    }
+    catch (NumberParseException e)
+    {
+      return null;
+    }
+  }
+
+  private static String randomNumber(Random random)
+  {
+    StringBuilder number = new StringBuilder();
+    if (random.nextBoolean())
+      number.append('+').append(1 + random.nextInt(999));
+    int length = random.nextInt(20);
+    for (int i = 0; i < length; i++)
+      number.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    return number.toString();
+  }
+
+  private static String mutate(String number, Random random)
+  {
+    StringBuilder mutated = new StringBuilder(number);
+    switch (random.nextInt(5))
+    {
+      case 0 -> mutated.append(random.nextInt(1_000_000));
+      case 1 -> mutated.setLength(Math.max(0, mutated.length() - 1 - random.nextInt(4)));
+      case 2 -> mutated.insert(0, '+');
+      case 3 -> mutated.deleteCharAt(random.nextInt(mutated.length()));
+      default -> mutated.insert(random.nextInt(mutated.length()), random.nextInt(10));
+    }
+    return mutated.toString();
+  }
+}
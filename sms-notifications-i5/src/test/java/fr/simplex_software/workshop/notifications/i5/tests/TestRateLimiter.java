@@ -0,0 +1,120 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRateLimiter
+{
+  private static final E164Number FR = new E164Number(33615229808L, "FR");
+  private static final RateLimit UNLIMITED = new RateLimit(1_000_000, Duration.ofSeconds(1));
+
+  private final AtomicLong now = new AtomicLong(-Duration.ofDays(1).toNanos());
+
+  @Test
+  public void testRecipientLimitShouldCapSendsPerRollingWindow()
+  {
+    RateLimiter limiter = new RateLimiter(new RateLimit(3, Duration.ofHours(1)), UNLIMITED, now::get);
+    for (int i = 0; i < 3; i++)
+      assertInstanceOf(Success.class, limiter.check(FR));
+    RateLimited<E164Number> limited = assertInstanceOf(RateLimited.class, limiter.check(FR));
+    assertEquals(Duration.ofHours(1), limited.retryAfter());
+    assertInstanceOf(Success.class, limiter.check(new E164Number(33615229809L, "FR")));
+    now.addAndGet(Duration.ofMinutes(20).toNanos());
+    limited = assertInstanceOf(RateLimited.class, limiter.check(FR));
+    assertEquals(Duration.ofMinutes(40), limited.retryAfter());
+    now.addAndGet(Duration.ofMinutes(40).toNanos());
+    for (int i = 0; i < 3; i++)
+      assertInstanceOf(Success.class, limiter.check(FR));
+    assertInstanceOf(RateLimited.class, limiter.check(FR));
+  }
+
+  @Test
+  public void testRecipientLimitShouldFreeOnePermitPerExpiredSend()
+  {
+    RateLimiter limiter = new RateLimiter(new RateLimit(3, Duration.ofHours(1)), UNLIMITED, now::get);
+    for (int i = 0; i < 3; i++)
+    {
+      assertInstanceOf(Success.class, limiter.check(FR));
+      now.addAndGet(Duration.ofMinutes(10).toNanos());
+    }
+    RateLimited<E164Number> limited = assertInstanceOf(RateLimited.class, limiter.check(FR));
+    assertEquals(Duration.ofMinutes(30), limited.retryAfter());
+    now.addAndGet(Duration.ofMinutes(30).toNanos());
+    assertInstanceOf(Success.class, limiter.check(FR));
+    limited = assertInstanceOf(RateLimited.class, limiter.check(FR));
+    assertEquals(Duration.ofMinutes(10), limited.retryAfter());
+  }
+
+  @Test
+  public void testRegionLimitShouldNotConsumeRecipientPermits()
+  {
+    RateLimiter limiter = new RateLimiter(new RateLimit(1, Duration.ofHours(1)), new RateLimit(2, Duration.ofSeconds(1)),
+      now::get);
+    assertInstanceOf(Success.class, limiter.check(new E164Number(33615229801L, "FR")));
+    assertInstanceOf(Success.class, limiter.check(new E164Number(33615229802L, "FR")));
+    RateLimited<E164Number> limited = assertInstanceOf(RateLimited.class, limiter.check(FR));
+    assertEquals(Duration.ofMillis(500), limited.retryAfter());
+    assertInstanceOf(Success.class, limiter.check(new E164Number(4930123456L, "DE")));
+    now.addAndGet(Duration.ofMillis(500).toNanos());
+    assertInstanceOf(Success.class, limiter.check(FR));
+  }
+
+  @Test
+  public void testEquivalentInputsShouldShareABucket()
+  {
+    RateLimiter limiter = new RateLimiter(new RateLimit(1, Duration.ofHours(1)), UNLIMITED, now::get);
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ZERO);
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      Notification notification = new Notification(smsService, new Blocklist().andThen(limiter));
+      assertInstanceOf(Success.class, notification.sendNotificationAsync("+33 6 15 22 98 08", "FR", "a").join());
+      assertInstanceOf(RateLimited.class, notification.sendNotificationAsync("06.15.22.98.08", "FR", "b").join());
+    }
+    assertEquals(1, gateway.sent());
+  }
+
+  @Test
+  public void testIdleBucketsShouldExpire()
+  {
+    RateLimiter limiter = new RateLimiter(new RateLimit(1, Duration.ofSeconds(1)), UNLIMITED, now::get);
+    for (int i = 0; i < 10_000; i++)
+      limiter.check(new E164Number(33600000000L + i, "FR"));
+    assertEquals(10_000, limiter.trackedRecipients());
+    now.addAndGet(Duration.ofSeconds(2).toNanos());
+    for (int i = 10_000; i < 20_000; i++)
+      limiter.check(new E164Number(33600000000L + i, "FR"));
+    assertTrue(limiter.trackedRecipients() < 12_000, "%d buckets".formatted(limiter.trackedRecipients()));
+  }
+
+  @Test
+  public void testConcurrentChecksShouldNotExceedTheLimits() throws InterruptedException
+  {
+    RateLimiter limiter = new RateLimiter(new RateLimit(100, Duration.ofHours(1)), new RateLimit(1_000, Duration.ofHours(1)));
+    AtomicInteger sameRecipient = new AtomicInteger();
+    AtomicInteger sameRegion = new AtomicInteger();
+    AtomicLong next = new AtomicLong(33600000000L);
+    try (ExecutorService executor = Executors.newFixedThreadPool(8))
+    {
+      for (int thread = 0; thread < 8; thread++)
+        executor.execute(() ->
+        {
+          for (int i = 0; i < 1_000; i++)
+          {
+            if (limiter.check(FR).isSuccess())
+              sameRecipient.incrementAndGet();
+            if (limiter.check(new E164Number(next.incrementAndGet(), "DE")).isSuccess())
+              sameRegion.incrementAndGet();
+          }
+        });
+    }
+    assertEquals(100, sameRecipient.get());
+    assertEquals(1_000, sameRegion.get());
+  }
+}
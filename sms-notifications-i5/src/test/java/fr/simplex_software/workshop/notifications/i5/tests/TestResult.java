@@ -0,0 +1,108 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestResult
+{
+  @Test
+  public void testMapShouldTransformSuccess()
+  {
+    Result<Integer> result = new Success<>("+33615229808").map(String::length);
+    assertEquals(12, result.orElse(0));
+  }
+
+  @Test
+  public void testFailureShouldPassThroughWithoutAllocating()
+  {
+    Result<String> failure = new Failure<>("### Invalid");
+    Result<Integer> result = failure
+      .map(String::length)
+      .flatMap(length -> new Success<>(length * 2))
+      .map(length -> length + 1);
+    assertSame(failure, result);
+  }
+
+  @Test
+  public void testFlatMapShouldShortCircuit()
+  {
+    Result<Integer> result = new Success<>("abc")
+      .<Integer>flatMap(value -> new Failure<>("### Rejected " + value))
+      .map(value -> fail("should not be called"));
+    assertEquals("### Rejected abc", result.fold(value -> "", message -> message));
+  }
+
+  @Test
+  public void testFoldShouldSelectBranch()
+  {
+    assertEquals("ok 3", new Success<>(3).fold(value -> "ok " + value, message -> "ko " + message));
+    assertEquals("ko no", new Failure<Integer>("no").fold(value -> "ok " + value, message -> "ko " + message));
+  }
+
+  @Test
+  public void testRecoverAndOrElse()
+  {
+    assertEquals("### Invalid!", new Failure<String>("### Invalid").recover(message -> message + "!").orElse(""));
+    assertEquals("value", new Success<>("value").recover(message -> "other").orElse(""));
+    assertEquals("default", new Failure<String>("### Invalid").orElse("default"));
+  }
+
+  @Test
+  public void testSequenceShouldCollectSuccesses()
+  {
+    Result<List<Integer>> result = Result.sequence(List.of(new Success<>(1), new Success<>(2), new Success<>(3)));
+    assertEquals(List.of(1, 2, 3), result.orElse(List.of()));
+  }
+
+  @Test
+  public void testSequenceShouldReturnFirstFailure()
+  {
+    Failure<Integer> first = new Failure<>("first");
+    Result<List<Integer>> result = Result.sequence(List.of(new Success<>(1), first, new Failure<>("second")));
+    assertSame(first, result);
+  }
+
+  @Test
+  public void testCombineShouldMergeTwoResults()
+  {
+    assertEquals("+33 FR", Result.combine(new Success<>("+33"), new Success<>("FR"), (a, b) -> a + " " + b).orElse(""));
+    assertFalse(Result.combine(new Success<>("+33"), new Failure<String>("no"), (a, b) -> a + b).isSuccess());
+  }
+
+  @Test
+  public void testTemplatedFailureShouldRenderLazilyOnce()
+  {
+    AtomicInteger rendered = new AtomicInteger();
+    Object number = new Object()
+    {
+      @Override
+      public String toString()
+      {
+        rendered.incrementAndGet();
+        return "0615229808";
+      }
+    };
+    MessageTemplate template = MessageTemplate.compile("### The phone number {number} is not for region {region}");
+    Failure<String> failure = new Failure<>(FailureReason.WRONG_REGION, template, number, "US");
+    Result<Integer> result = failure.map(String::length).flatMap(length -> new Success<>(length * 2));
+    assertSame(failure, result);
+    assertEquals(FailureReason.WRONG_REGION, failure.reason());
+    assertEquals(0, rendered.get());
+    assertEquals("### The phone number 0615229808 is not for region US", failure.getMessage());
+    assertEquals("ko ### The phone number 0615229808 is not for region US",
+      failure.fold(value -> "ok", message -> "ko " + message));
+    assertEquals(1, rendered.get());
+  }
+
+  @Test
+  public void testTemplatedFailureShouldRejectMissingValues()
+  {
+    MessageTemplate template = MessageTemplate.compile("### The phone number {number} is not for region {region}");
+    assertThrows(IllegalArgumentException.class, () -> new Failure<>(FailureReason.WRONG_REGION, template, "0615229808"));
+  }
+}
@@ -0,0 +1,181 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.lang.management.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRingBufferDispatcher
+{
+  private static final int MESSAGES = 5_000;
+
+  @Test
+  public void testEveryPublishedEntryShouldBeHandledOnce() throws InterruptedException
+  {
+    assertHandledOnce(WaitStrategy.YIELDING, 4, 3);
+    assertHandledOnce(WaitStrategy.PARKING, 4, 3);
+  }
+
+  @Test
+  public void testBusySpinShouldHandleEveryEntryOnce() throws InterruptedException
+  {
+    assertHandledOnce(WaitStrategy.BUSY_SPIN, 1, 1);
+  }
+
+  @Test
+  public void testCloseShouldDrainAndRejectNewEntries()
+  {
+    CountDownLatch blocked = new CountDownLatch(1);
+    AtomicInteger handled = new AtomicInteger();
+    RingBufferDispatcher dispatcher = new RingBufferDispatcher(16, 1, 4, WaitStrategy.PARKING,
+      (phoneNumber, region, message) ->
+      {
+        try
+        {
+          blocked.await();
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+        handled.incrementAndGet();
+      });
+    for (int i = 0; i < 10; i++)
+      assertTrue(dispatcher.publish("0615229808", "FR", "hello"));
+    blocked.countDown();
+    dispatcher.close();
+    assertEquals(10, handled.get());
+    assertFalse(dispatcher.publish("0615229808", "FR", "hello"));
+  }
+
+  @Test
+  public void testHandlerFailuresShouldNotStopTheConsumers()
+  {
+    Logger logger = Logger.getLogger(RingBufferDispatcher.class.getName());
+    AtomicInteger warnings = new AtomicInteger();
+    Handler handler = new Handler()
+    {
+      @Override
+      public void publish(LogRecord record)
+      {
+        warnings.incrementAndGet();
+      }
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+    };
+    logger.addHandler(handler);
+    logger.setUseParentHandlers(false);
+    try
+    {
+      AtomicInteger handled = new AtomicInteger();
+      RingBufferDispatcher dispatcher = new RingBufferDispatcher(8, 1, 4, WaitStrategy.YIELDING,
+        (phoneNumber, region, message) ->
+        {
+          if (handled.incrementAndGet() % 2 == 0)
+            throw new IllegalStateException("### Boom");
+        });
+      for (int i = 0; i < 100; i++)
+        dispatcher.publish("0615229808", "FR", "hello");
+      dispatcher.close();
+      assertEquals(100, handled.get());
+      assertEquals(50, warnings.get());
+    }
+    finally
+    {
+      logger.removeHandler(handler);
+      logger.setUseParentHandlers(true);
+    }
+  }
+
+  @Test
+  public void testPublishingShouldNotAllocate()
+  {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    RingBufferDispatcher dispatcher = new RingBufferDispatcher(1_024, 1, 64, WaitStrategy.YIELDING,
+      (phoneNumber, region, message) -> {});
+    for (int i = 0; i < 100_000; i++)
+      dispatcher.publish("0615229808", "FR", "hello");
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < 100_000; i++)
+      dispatcher.publish("0615229808", "FR", "hello");
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+    dispatcher.close();
+    assertTrue(allocated < 10_000, "%d bytes allocated".formatted(allocated));
+  }
+
+  @Test
+  public void testNotificationShouldDispatchThroughTheRingBuffer()
+  {
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ofMillis(1));
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      Notification notification = new Notification(smsService);
+      RingBufferDispatcher dispatcher = notification.startDispatcher(256, 2, WaitStrategy.PARKING);
+      long start = System.nanoTime();
+      for (int i = 0; i < 100; i++)
+        notification.sendNotification("06" + (15_000_000 + i), "FR", "hello");
+      assertTrue(System.nanoTime() - start < Duration.ofMillis(100).toNanos(), "callers should not wait for the gateway");
+      dispatcher.close();
+      assertEquals(100, gateway.sent());
+      notification.sendNotification("0615229808", "FR", "hello");
+      assertEquals(101, gateway.sent());
+    }
+  }
+
+  @Test
+  public void testRestartingTheDispatcherShouldCloseThePreviousOne()
+  {
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ZERO);
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      Notification notification = new Notification(smsService);
+      RingBufferDispatcher first = notification.startDispatcher(64, 1, WaitStrategy.YIELDING);
+      first.publish("0615229808", "FR", "hello");
+      RingBufferDispatcher second = notification.startDispatcher(64, 1, WaitStrategy.YIELDING);
+      assertFalse(first.publish("0615229808", "FR", "hello"));
+      assertEquals(1, gateway.sent());
+      notification.sendNotification("0615229808", "FR", "hello");
+      second.close();
+      assertEquals(2, gateway.sent());
+    }
+  }
+
+  private static void assertHandledOnce(WaitStrategy waitStrategy, int producers, int consumers)
+    throws InterruptedException
+  {
+    String[] numbers = new String[MESSAGES];
+    for (int i = 0; i < MESSAGES; i++)
+      numbers[i] = String.valueOf(i);
+    AtomicIntegerArray handled = new AtomicIntegerArray(producers * MESSAGES);
+    RingBufferDispatcher dispatcher = new RingBufferDispatcher(64, consumers, 8, waitStrategy,
+      (phoneNumber, region, message) ->
+        handled.incrementAndGet(Integer.parseInt(region) * MESSAGES + Integer.parseInt(phoneNumber)));
+    try (ExecutorService executor = Executors.newFixedThreadPool(producers))
+    {
+      for (int p = 0; p < producers; p++)
+      {
+        String region = String.valueOf(p);
+        executor.execute(() ->
+        {
+          for (int i = 0; i < MESSAGES; i++)
+            assertTrue(dispatcher.publish(numbers[i], region, "hello"));
+        });
+      }
+    }
+    dispatcher.close();
+    assertEquals(0, dispatcher.pending(), waitStrategy.name());
+    for (int i = 0; i < handled.length(); i++)
+      assertEquals(1, handled.get(i), "%s: entry %d".formatted(waitStrategy, i));
+  }
+}
@@ -0,0 +1,133 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.nio.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSmsEncoder
+{
+  private final SmsEncoder encoder = new SmsEncoder();
+
+  @Test
+  public void testGsmMessageShouldPackSeptets()
+  {
+    EncodedSms encoded = encoder.encode("hellohello", 0);
+    assertEquals(SmsEncoding.GSM_7, encoded.encoding());
+    assertEquals(1, encoded.segments());
+    assertArrayEquals(new byte[]{10, (byte) 0xE8, 0x32, (byte) 0x9B, (byte) 0xFD, 0x46, (byte) 0x97, (byte) 0xD9,
+      (byte) 0xEC, 0x37}, bytes(encoded.userData()));
+  }
+
+  @Test
+  public void testGsmTablesShouldCoverTheAlphabet()
+  {
+    assertEquals(SmsEncoding.GSM_7, SmsEncoder.encodingOf("@£$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞÆæßÉ !\"#¤%&'()*+,-./09:;<=>?"
+      + "¡AZÄÖÑÜ§¿azäöñüà\f^{}\\[~]|€"));
+    assertEquals(SmsEncoding.UCS_2, SmsEncoder.encodingOf("Bonjour à tous, ça va ?"));
+    assertEquals(SmsEncoding.UCS_2, SmsEncoder.encodingOf("Привет"));
+    assertEquals(SmsEncoding.UCS_2, SmsEncoder.encodingOf("\u001B"));
+    EncodedSms euro = encoder.encode("€", 0);
+    assertArrayEquals(new byte[]{2, (byte) 0x9B, 0x32}, bytes(euro.userData()));
+  }
+
+  @Test
+  public void testSegmentCountShouldFollowTheEncodingLimits()
+  {
+    assertEquals(1, SmsEncoder.segmentCount(""));
+    assertEquals(1, SmsEncoder.segmentCount("a".repeat(160)));
+    assertEquals(2, SmsEncoder.segmentCount("a".repeat(161)));
+    assertEquals(2, SmsEncoder.segmentCount("a".repeat(306)));
+    assertEquals(3, SmsEncoder.segmentCount("a".repeat(307)));
+    assertEquals(1, SmsEncoder.segmentCount("€".repeat(80)));
+    assertEquals(2, SmsEncoder.segmentCount("€".repeat(81)));
+    assertEquals(1, SmsEncoder.segmentCount("я".repeat(70)));
+    assertEquals(2, SmsEncoder.segmentCount("я".repeat(71)));
+    assertEquals(2, SmsEncoder.segmentCount("я".repeat(134)));
+    assertEquals(3, SmsEncoder.segmentCount("я".repeat(135)));
+    assertEquals(3, new SmsMessage(new E164Number(33615229808L, "FR"), "a".repeat(307)).segments());
+  }
+
+  @Test
+  public void testMultipartGsmShouldCarryHeadersAndNotSplitEscapes()
+  {
+    EncodedSms encoded = encoder.encode("a".repeat(152) + "€" + "b".repeat(10), 42);
+    assertEquals(2, encoded.segments());
+    ByteBuffer userData = encoded.userData();
+    int udl = userData.get() & 0xFF;
+    assertEquals(7 + 152, udl);
+    assertArrayEquals(new byte[]{5, 0, 3, 42, 2, 1}, slice(userData, 6));
+    userData.position(userData.position() + (udl * 7 + 7) / 8 - 6);
+    assertEquals(7 + 12, userData.get() & 0xFF);
+    assertArrayEquals(new byte[]{5, 0, 3, 42, 2, 2}, slice(userData, 6));
+    assertEquals(0x1B << 1, userData.get() & 0xFF);
+  }
+
+  @Test
+  public void testMultipartUcs2ShouldNotSplitSurrogatePairs()
+  {
+    String text = "я".repeat(66) + "😀" + "я".repeat(10);
+    assertEquals(2, SmsEncoder.segmentCount(text));
+    EncodedSms encoded = encoder.encode(text, 7);
+    assertEquals(SmsEncoding.UCS_2, encoded.encoding());
+    ByteBuffer userData = encoded.userData();
+    assertEquals(6 + 66 * 2, userData.get() & 0xFF);
+    assertArrayEquals(new byte[]{5, 0, 3, 7, 2, 1}, slice(userData, 6));
+    userData.position(userData.position() + 66 * 2);
+    assertEquals(6 + 12 * 2, userData.get() & 0xFF);
+    userData.position(userData.position() + 6);
+    assertEquals('\uD83D', userData.getChar());
+    assertEquals('\uDE00', userData.getChar());
+  }
+
+  @Test
+  public void testEncodedSegmentsShouldMatchTheSegmentCount()
+  {
+    Random random = new Random(19);
+    String alphabet = "abc XYZ 123 €{}[] éàü ΔΣ";
+    String unicode = "жш中文😀";
+    for (int n = 0; n < 2_000; n++)
+    {
+      StringBuilder text = new StringBuilder();
+      int length = random.nextInt(700);
+      boolean gsm = random.nextBoolean();
+      for (int i = 0; i < length; i++)
+        text.append(gsm || random.nextInt(4) != 0 ? alphabet.charAt(random.nextInt(alphabet.length()))
+          : unicode.charAt(random.nextInt(unicode.length())));
+      EncodedSms encoded = encoder.encode(text, n);
+      assertEquals(SmsEncoder.segmentCount(text), encoded.segments());
+      ByteBuffer userData = encoded.userData();
+      int segments = 0;
+      while (userData.hasRemaining())
+      {
+        int udl = userData.get() & 0xFF;
+        int octets = encoded.encoding() == SmsEncoding.GSM_7 ? (udl * 7 + 7) / 8 : udl;
+        assertTrue(octets <= 140, "%d octets".formatted(octets));
+        userData.position(userData.position() + octets);
+        segments++;
+      }
+      assertEquals(encoded.segments(), segments);
+    }
+  }
+
+  @Test
+  public void testTooLongMessageShouldBeRejected()
+  {
+    assertThrows(IllegalArgumentException.class, () -> encoder.encode("a".repeat(153 * 255 + 1), 0));
+  }
+
+  private static byte[] bytes(ByteBuffer buffer)
+  {
+    return slice(buffer, buffer.remaining());
+  }
+
+  private static byte[] slice(ByteBuffer buffer, int length)
+  {
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,173 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSmsService
+{
+  private static final E164Number PHONE_NUMBER = new E164Number(33615229808L, "FR");
+
+  @Test
+  public void testSendAsyncShouldSucceed()
+  {
+    try (SmsService smsService = new SmsService(new FakeSmsGateway(Duration.ofMillis(5)), 10))
+    {
+      Result<String> result = smsService.sendAsync(PHONE_NUMBER, "Salut !").join();
+      assertInstanceOf(Success.class, result);
+    }
+  }
+
+  @Test
+  public void testSendAsyncShouldFailWhenGatewayThrows()
+  {
+    SmsGateway gateway = (phoneNumber, message) ->
+    {
+      throw new IllegalStateException("gateway down");
+    };
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      Result<String> result = smsService.sendAsync(PHONE_NUMBER, "Salut !").join();
+      assertInstanceOf(Failure.class, result);
+    }
+  }
+
+  @Test
+  public void testSendNotificationAsyncShouldFailInvalidNumber()
+  {
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ofMillis(5));
+    try (SmsService smsService = new SmsService(gateway, 10))
+    {
+      Notification notification = new Notification(smsService);
+      Result<String> result = notification.sendNotificationAsync(null, "FR", "Salut !").join();
+      assertInstanceOf(Failure.class, result);
+      assertEquals(0, gateway.sent());
+    }
+  }
+
+  @Test
+  public void testConcurrentSendsShouldBeCappedAndOverlap()
+  {
+    FakeSmsGateway gateway = new FakeSmsGateway(Duration.ofMillis(20));
+    long start = System.nanoTime();
+    try (SmsService smsService = new SmsService(gateway, 1_000))
+    {
+      Notification notification = new Notification(smsService);
+      List<CompletableFuture<Result<String>>> deliveries = new ArrayList<>();
+      for (int i = 0; i < 10_000; i++)
+        deliveries.add(notification.sendNotificationAsync("+33615229808", "FR", "Message %d".formatted(i)));
+      CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new)).join();
+      deliveries.forEach(delivery -> assertInstanceOf(Success.class, delivery.join()));
+    }
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+    assertEquals(10_000, gateway.sent());
+    assertTrue(gateway.maxInFlight() <= 1_000);
+    assertTrue(elapsed.compareTo(Duration.ofSeconds(60)) < 0, "10k sends of 20 ms took " + elapsed);
+  }
+
+  @Test
+  public void testTransientFailuresShouldBeRetried()
+  {
+    Map<E164Number, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    SmsGateway flaky = (phoneNumber, message) ->
+      attempts.computeIfAbsent(phoneNumber, key -> new AtomicInteger()).incrementAndGet() < 3
+        ? new TransientFailure<>("### Provider busy") : new Success<>(phoneNumber.toString());
+    List<SmsMessage> deadLetters = new CopyOnWriteArrayList<>();
+    RetryPolicy policy = new RetryPolicy(5, Duration.ofMillis(10), Duration.ofMillis(100), 0.5);
+    try (SmsService smsService = new SmsService(flaky, 100, policy, (message, count, error) -> deadLetters.add(message)))
+    {
+      List<CompletableFuture<Result<String>>> deliveries = new ArrayList<>();
+      for (int i = 0; i < 1_000; i++)
+        deliveries.add(smsService.sendAsync(new E164Number(33_600_000_000L + i, "FR"), "Message " + i));
+      deliveries.forEach(delivery -> assertInstanceOf(Success.class, delivery.join()));
+      assertEquals(0, smsService.pendingRetries());
+    }
+    assertEquals(1_000, attempts.size());
+    attempts.values().forEach(count -> assertEquals(3, count.get()));
+    assertTrue(deadLetters.isEmpty());
+  }
+
+  @Test
+  public void testExhaustedRetriesShouldBeDeadLettered()
+  {
+    AtomicInteger attempts = new AtomicInteger();
+    SmsGateway down = (phoneNumber, message) ->
+    {
+      attempts.incrementAndGet();
+      return new TransientFailure<>("### Connection refused");
+    };
+    List<String> deadLetters = new CopyOnWriteArrayList<>();
+    RetryPolicy policy = new RetryPolicy(4, Duration.ofMillis(5), Duration.ofMillis(20), 0);
+    try (SmsService smsService = new SmsService(down, 10, policy,
+      (message, count, error) -> deadLetters.add(message.message() + "/" + count)))
+    {
+      Result<String> result = smsService.sendAsync(PHONE_NUMBER, "Salut !").join();
+      assertInstanceOf(Failure.class, result);
+      assertFalse(result instanceof TransientFailure);
+    }
+    assertEquals(4, attempts.get());
+    assertEquals(List.of("Salut !/4"), deadLetters);
+  }
+
+  @Test
+  public void testGatewayExceptionsShouldNotBeRetried()
+  {
+    AtomicInteger attempts = new AtomicInteger();
+    SmsGateway broken = (phoneNumber, message) ->
+    {
+      attempts.incrementAndGet();
+      throw new NullPointerException("### No message");
+    };
+    RetryPolicy policy = new RetryPolicy(4, Duration.ofMillis(5), Duration.ofMillis(20), 0);
+    try (SmsService smsService = new SmsService(broken, 10, policy, (message, count, error) -> fail(error)))
+    {
+      Result<String> result = smsService.sendAsync(PHONE_NUMBER, "Salut !").join();
+      assertInstanceOf(Failure.class, result);
+      assertEquals(FailureReason.GATEWAY_ERROR, ((Failure<String>) result).reason());
+      assertEquals(0, smsService.pendingRetries());
+    }
+    assertEquals(1, attempts.get());
+  }
+
+  @Test
+  public void testPermanentFailuresShouldNotBeRetried()
+  {
+    AtomicInteger attempts = new AtomicInteger();
+    SmsGateway rejecting = (phoneNumber, message) ->
+    {
+      attempts.incrementAndGet();
+      return new Failure<>("### Unknown subscriber");
+    };
+    RetryPolicy policy = new RetryPolicy(4, Duration.ofMillis(5), Duration.ofMillis(20), 0);
+    try (SmsService smsService = new SmsService(rejecting, 10, policy, (message, count, error) -> fail(error)))
+    {
+      assertInstanceOf(Failure.class, smsService.sendAsync(PHONE_NUMBER, "Salut !").join());
+    }
+    assertEquals(1, attempts.get());
+  }
+
+  @Test
+  public void testPendingRetriesShouldBeDeadLetteredOnClose()
+  {
+    List<SmsMessage> deadLetters = new CopyOnWriteArrayList<>();
+    RetryPolicy policy = new RetryPolicy(3, Duration.ofHours(1), Duration.ofHours(1), 0);
+    CompletableFuture<Result<String>> delivery;
+    try (SmsService smsService = new SmsService((phoneNumber, message) -> new TransientFailure<>("### Busy"), 10,
+      policy, (message, count, error) -> deadLetters.add(message)))
+    {
+      delivery = smsService.sendAsync(PHONE_NUMBER, "Salut !");
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (smsService.pendingRetries() == 0 && System.nanoTime() < deadline)
+        Thread.onSpinWait();
+      assertEquals(1, smsService.pendingRetries());
+    }
+    assertInstanceOf(Failure.class, delivery.join());
+    assertEquals(List.of(new SmsMessage(PHONE_NUMBER, "Salut !")), deadLetters);
+  }
+}
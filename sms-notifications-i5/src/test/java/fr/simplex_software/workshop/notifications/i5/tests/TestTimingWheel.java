@@ -0,0 +1,82 @@
+package fr.simplex_software.workshop.notifications.i5.tests;
+
+import fr.simplex_software.workshop.notifications.i5.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTimingWheel
+{
+  @Test
+  public void testItemsShouldNeverExpireEarly() throws InterruptedException
+  {
+    int count = 1_000_000;
+    long[] deadlines = new long[count];
+    AtomicLong early = new AtomicLong();
+    AtomicLong maxLateness = new AtomicLong();
+    CountDownLatch expired = new CountDownLatch(count);
+    try (TimingWheel<Integer> wheel = new TimingWheel<>(Duration.ofMillis(1), 256, item ->
+    {
+      long lateness = System.nanoTime() - deadlines[item];
+      if (lateness < 0)
+        early.incrementAndGet();
+      maxLateness.accumulateAndGet(lateness, Math::max);
+      expired.countDown();
+    }))
+    {
+      Random random = new Random(5);
+      for (int i = 0; i < count; i++)
+      {
+        long delay = TimeUnit.MILLISECONDS.toNanos(random.nextInt(500));
+        deadlines[i] = System.nanoTime() + delay;
+        assertTrue(wheel.schedule(i, delay));
+      }
+      assertTrue(expired.await(30, TimeUnit.SECONDS), "%d items left".formatted(expired.getCount()));
+      assertEquals(0, wheel.pending());
+    }
+    assertEquals(0, early.get());
+    assertTrue(maxLateness.get() < TimeUnit.SECONDS.toNanos(5), "%d ns late".formatted(maxLateness.get()));
+  }
+
+  @Test
+  public void testShutdownShouldReturnPendingItems()
+  {
+    List<String> expired = new CopyOnWriteArrayList<>();
+    TimingWheel<String> wheel = new TimingWheel<>(Duration.ofMillis(10), 16, expired::add);
+    wheel.schedule("now", 0);
+    wheel.schedule("later", TimeUnit.HOURS.toNanos(1));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (expired.isEmpty() && System.nanoTime() < deadline)
+      Thread.onSpinWait();
+    assertEquals(List.of("now"), expired);
+    assertEquals(List.of("later"), wheel.shutdown());
+    assertFalse(wheel.schedule("too late", 0));
+    assertEquals(0, wheel.pending());
+  }
+
+  @Test
+  public void testItemsScheduledDuringShutdownShouldNotBeLost() throws InterruptedException
+  {
+    for (int round = 0; round < 50; round++)
+    {
+      AtomicInteger fired = new AtomicInteger();
+      AtomicInteger accepted = new AtomicInteger();
+      TimingWheel<Integer> wheel = new TimingWheel<>(Duration.ofMillis(1), 16, item -> fired.incrementAndGet());
+      Thread scheduler = Thread.ofPlatform().start(() ->
+      {
+        for (int i = 0; wheel.schedule(i, TimeUnit.HOURS.toNanos(1)); i++)
+          accepted.incrementAndGet();
+      });
+      Thread.sleep(1);
+      List<Integer> remaining = wheel.shutdown();
+      scheduler.join();
+      assertEquals(accepted.get(), remaining.size() + fired.get());
+      assertEquals(0, wheel.pending());
+    }
+  }
+}